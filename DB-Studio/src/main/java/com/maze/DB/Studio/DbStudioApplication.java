@@ -2,8 +2,10 @@ package com.maze.DB.Studio;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class DbStudioApplication {
 
 	public static void main(String[] args) {
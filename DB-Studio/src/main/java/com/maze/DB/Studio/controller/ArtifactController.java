@@ -0,0 +1,47 @@
+package com.maze.DB.Studio.controller;
+
+import com.maze.DB.Studio.model.ArtifactFile;
+import com.maze.DB.Studio.service.BackupArtifactService;
+import com.maze.DB.Studio.util.FileDownloads;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Lists and downloads the files in the exports folder by name, so exports and backups can
+ * still be fetched after the job that made them has expired or the server has restarted.
+ */
+@Controller
+@RequiredArgsConstructor
+@RequestMapping("/db/artifacts")
+public class ArtifactController {
+
+    private final BackupArtifactService artifacts;
+
+    @GetMapping
+    @ResponseBody
+    public List<ArtifactFile> list() throws IOException {
+        return artifacts.listArtifacts();
+    }
+
+    /**
+     * Downloads one file, with Range support like job downloads.
+     */
+    @GetMapping("/{name:.+}")
+    public void download(@PathVariable String name, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path artifact;
+        try {
+            artifact = artifacts.resolveArtifact(name);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, e.getMessage());
+            return;
+        }
+        FileDownloads.serve(artifact, request, response);
+    }
+}
@@ -1,7 +1,28 @@
 package com.maze.DB.Studio.controller;
 
+import com.maze.DB.Studio.model.BackupManifest;
 import com.maze.DB.Studio.model.ConnectionProfile;
+import com.maze.DB.Studio.model.ImportOptions;
+import com.maze.DB.Studio.model.ImportResult;
+import com.maze.DB.Studio.model.MongoBackupManifest;
+import com.maze.DB.Studio.model.MongoQuery;
+import com.maze.DB.Studio.service.BackupArtifactService;
 import com.maze.DB.Studio.service.ConnectionService;
+import com.maze.DB.Studio.service.CursorSessionManager;
+import com.maze.DB.Studio.service.ExportService;
+import com.maze.DB.Studio.service.JobManager;
+import com.maze.DB.Studio.service.ImportPipeline;
+import com.maze.DB.Studio.service.JobProgress;
+import com.maze.DB.Studio.service.KeysetPaginator;
+import com.maze.DB.Studio.service.LogicalBackupService;
+import com.maze.DB.Studio.service.LogicalRestoreService;
+import com.maze.DB.Studio.service.MetadataLoader;
+import com.maze.DB.Studio.service.MongoBackupService;
+import com.maze.DB.Studio.service.MongoQueryService;
+import com.maze.DB.Studio.service.UploadManager;
+import com.maze.DB.Studio.util.CountingInputStream;
+import com.maze.DB.Studio.util.ResultSetUtil;
+import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
@@ -12,13 +33,26 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 import static com.maze.DB.Studio.util.JdbcUrlParser.extractDatabaseName;
 import static com.maze.DB.Studio.util.JdbcUrlParser.extractHost;
@@ -28,7 +62,22 @@ import static com.maze.DB.Studio.util.JdbcUrlParser.extractHost;
 @RequestMapping("/db")
 public class ConnectionController {
 
+    // Page boundary keys carried by keyset paging forms; older ones are dropped
+    private static final int MAX_KEYSET_PATH = 20;
+
     private final ConnectionService service;
+    private final MetadataLoader metadataLoader;
+    private final CursorSessionManager cursorSessions;
+    private final KeysetPaginator keysetPaginator;
+    private final ExportService exportService;
+    private final JobManager jobManager;
+    private final UploadManager uploads;
+    private final LogicalBackupService logicalBackups;
+    private final LogicalRestoreService logicalRestores;
+    private final MongoBackupService mongoBackups;
+    private final BackupArtifactService artifacts;
+    private final MongoQueryService mongoQueries;
+    private final ImportPipeline importPipeline;
 
     @GetMapping({"", "/"})
     public String home(Model model) {
@@ -41,8 +90,6 @@ public class ConnectionController {
     @PostMapping("/connect")
     public String connect(@ModelAttribute ConnectionProfile profile, Model model) {
         try {
-            service.testConnection(profile);
-
             boolean mongo = isMongo(profile);
             String dbName = null;
             String serverName = null;
@@ -59,17 +106,34 @@ public class ConnectionController {
             profile.setDatabaseName(dbName);
             model.addAttribute("profile", profile);
 
+            // Test the login on its own first: a wrong password must fail once, not once per
+            // lookup, since repeated failures can lock the account
+            MetadataLoader.Results test = metadataLoader.load(Map.of("connection", () -> {
+                service.testConnection(profile);
+                return true;
+            }));
+            if (test.failure("connection") != null) throw test.failure("connection");
+            if (test.timedOut("connection")) {
+                throw new Exception("Cannot reach the database server. Check the host, port, and network.");
+            }
+
+            // The metadata lookups are independent round trips; run them together
+            Map<String, Callable<?>> lookups = new LinkedHashMap<>();
+            String selectedDb = dbName;
             if (dbName != null && !dbName.isEmpty()) {
-                model.addAttribute("tables", service.listTables(profile, dbName));
+                lookups.put("tables", () -> service.listTables(profile, selectedDb));
             } else {
-                model.addAttribute("databases", service.listDatabases(profile));
+                lookups.put("databases", () -> service.listDatabases(profile));
             }
-
             if (!mongo) {
-                model.addAttribute("views", service.listViews(profile));
-                model.addAttribute("procedures", service.listStoredProcedures(profile));
+                lookups.put("views", () -> service.listViews(profile));
+                lookups.put("procedures", () -> service.listStoredProcedures(profile));
             }
 
+            MetadataLoader.Results results = metadataLoader.load(lookups);
+            results.values().forEach(model::addAttribute);
+            model.addAttribute("warning", results.partialResultsWarning());
+
             return "columns";
         } catch (Exception e) {
             model.addAttribute("error", service.getFriendlyErrorMessage(e, profile));
@@ -85,6 +149,13 @@ public class ConnectionController {
                               @RequestParam(required = false) String sql,
                               @RequestParam(required = false, defaultValue = "1") int page,
                               @RequestParam(required = false, defaultValue = "10") int size,
+                              @RequestParam(required = false, defaultValue = "false") boolean refresh,
+                              @RequestParam(required = false, defaultValue = "false") boolean cursor,
+                              @RequestParam(required = false) String cursorId,
+                              @RequestParam(required = false, defaultValue = "false") boolean rerun,
+                              @RequestParam(required = false, defaultValue = "false") boolean keyset,
+                              @RequestParam(required = false, defaultValue = "") String keysetPath,
+                              HttpSession httpSession,
                               Model model) {
         try {
             model.addAttribute("profile", profile);
@@ -98,7 +169,6 @@ public class ConnectionController {
                     mongoUrl = replaceOrAppendMongoDb(mongoUrl, database);
                     profile.setMongoUri(mongoUrl);
                 }
-                model.addAttribute("databases", service.listDatabases(profile));
             } else {
                 if (database != null && !database.isBlank()) {
                     profile.setDatabaseName(database);
@@ -106,21 +176,30 @@ public class ConnectionController {
                     jdbcUrl = updateJdbcUrl(jdbcUrl, database);
                     profile.setJdbcUrl(jdbcUrl);
                 }
-                model.addAttribute("databases", service.listDatabases(profile));
             }
 
-            if (database != null && !database.isBlank()) {
-                model.addAttribute("tables", service.listTables(profile, database));
+            if (refresh) service.invalidateMetadata(profile);
+
+            // Run the query first so DDL invalidates the metadata cache before the lists are loaded
+            if (sql != null && !sql.trim().isEmpty()) {
+                QueryPaging paging = new QueryPaging(cursor, cursorId, rerun, httpSession.getId(), keyset, keysetPath);
+                runQueryInternalPaginated(profile, sql, page, size, paging, model);
             }
 
+            Map<String, Callable<?>> lookups = new LinkedHashMap<>();
+            lookups.put("databases", () -> service.listDatabases(profile));
+            if (database != null && !database.isBlank()) {
+                lookups.put("tables", () -> service.listTables(profile, database));
+            }
             if (table != null && !table.isBlank()) {
                 model.addAttribute("table", table);
-                model.addAttribute("tableColumns", service.listColumns(profile, table));
+                lookups.put("tableColumns", () -> service.listColumns(profile, table));
             }
 
-            if (sql != null && !sql.trim().isEmpty()) {
-                runQueryInternalPaginated(profile, sql, page, size, model);
-            }
+            MetadataLoader.Results results = metadataLoader.load(lookups);
+            if (results.failure("databases") != null) throw results.failure("databases");
+            results.values().forEach(model::addAttribute);
+            model.addAttribute("warning", results.partialResultsWarning());
 
         } catch (Exception e) {
             // ✅ Show error on the page instead of crashing
@@ -131,12 +210,28 @@ public class ConnectionController {
     }
 
 
-    private void runQueryInternalPaginated(ConnectionProfile profile, String sql, int page, int size, Model model) {
+    /**
+     * How a SELECT should be paged: by re-running it with OFFSET (the default), by reading
+     * from a server-side cursor kept open for the owning HTTP session, or by seeking on the
+     * table key (for Mongo, the sort field or {@code _id}). {@code keysetPath} holds the
+     * URL-encoded, comma-separated last key of the pages before the current one (at most
+     * {@link #MAX_KEYSET_PATH} of them), so Previous/Next need no server-side state. {@code rerun} is set when the query is run from
+     * the editor rather than paged, so an open cursor is replaced by a fresh one.
+     */
+    private record QueryPaging(boolean cursor, String cursorId, boolean rerun, String owner, boolean keyset, String keysetPath) {
+    }
+
+    private void runQueryInternalPaginated(ConnectionProfile profile, String sql, int page, int size, QueryPaging paging, Model model) {
         model.addAttribute("sql", sql);
         model.addAttribute("currentPage", page);
         model.addAttribute("pageSize", size);
 
         try {
+            if (isMongo(profile)) {
+                runMongoPage(profile, sql, page, size, paging, model);
+                return;
+            }
+
             String trimmedSql = sql.trim().toUpperCase(Locale.ROOT);
             boolean isSelectQuery = trimmedSql.startsWith("SELECT");
 
@@ -146,6 +241,7 @@ public class ConnectionController {
                      Statement stmt = conn.createStatement()) {
 
                     int updateCount = stmt.executeUpdate(sql);
+                    if (isDdl(trimmedSql)) service.invalidateMetadata(profile);
                     model.addAttribute("message", "Query executed successfully. " + updateCount + " row(s) affected.");
                     model.addAttribute("isLastPage", true);
                     return;
@@ -157,16 +253,8 @@ public class ConnectionController {
             boolean isLastPage;
             int fetchSize = size + 1; // fetch one extra row to detect next page
 
-            if (isMongo(profile)) {
-                results = service.executeMongoQueryPaginated(profile, sql, page, fetchSize);
-                isLastPage = results.size() <= size;
-                if (results.size() > size) results = results.subList(0, size);
-
-                if (!results.isEmpty()) model.addAttribute("resultColumns", results.get(0));
-                model.addAttribute("results", results);
-                model.addAttribute("isLastPage", isLastPage);
-                return;
-            }
+            if (paging.keyset() && runKeysetPage(profile, sql, page, size, paging, model)) return;
+            if (paging.cursor() && runCursorPage(profile, sql, page, size, paging, model)) return;
 
             // JDBC pagination
             String paginatedSql = ConnectionService.addPagination(profile.getJdbcUrl(), sql, page, fetchSize);
@@ -213,6 +301,124 @@ public class ConnectionController {
     }
 
 
+    /**
+     * Serves the page from the caller's cursor session, opening one if there is none for this
+     * query (or the query is being run again). Paging back to page 1 keeps the session, so it
+     * shows the rows already seen. Returns false when the page has dropped out of the cursor's
+     * buffer or the database has no cursor slot free.
+     */
+    private boolean runCursorPage(ConnectionProfile profile, String sql, int page, int size, QueryPaging paging, Model model) throws SQLException {
+        if (paging.rerun()) cursorSessions.close(paging.owner(), paging.cursorId());
+        CursorSessionManager.CursorSession session = paging.rerun() ? null : cursorSessions.find(paging.owner(), paging.cursorId(), profile, sql);
+        if (session == null) {
+            session = cursorSessions.open(paging.owner(), profile, sql);
+            if (session == null) return false; // too many cursors open on this database; page with OFFSET
+        }
+
+        List<List<Object>> rows = session.page(page, size);
+        if (rows == null) return false;
+        model.addAttribute("cursorMode", true);
+        model.addAttribute("cursorId", session.getId());
+
+        List<List<Object>> allRows = new ArrayList<>();
+        allRows.add(session.getHeaders());
+        allRows.addAll(rows);
+        model.addAttribute("results", allRows);
+        model.addAttribute("resultColumns", session.getHeaders());
+        model.addAttribute("isLastPage", session.isLastPage(page, size));
+        model.addAttribute("message", "Query executed successfully.");
+        return true;
+    }
+
+    /**
+     * Serves a {@code SELECT * FROM table} page by seeking past the previous page's last key.
+     * Returns false when the query or table does not qualify, leaving OFFSET pagination to run.
+     */
+    private boolean runKeysetPage(ConnectionProfile profile, String sql, int page, int size, QueryPaging paging, Model model) throws Exception {
+        String table = KeysetPaginator.browsedTable(sql);
+        if (table == null) return false;
+        KeysetPaginator.KeyColumn key = keysetPaginator.findKey(profile, table);
+        if (key == null) return false;
+
+        List<String> path = decodeKeysetPath(paging.keysetPath());
+        String afterKey = path.isEmpty() ? null : path.get(path.size() - 1);
+        KeysetPaginator.Page result = keysetPaginator.fetchPage(profile, table, key, afterKey, size);
+
+        List<List<Object>> allRows = new ArrayList<>();
+        allRows.add(result.headers());
+        allRows.addAll(result.rows());
+        model.addAttribute("results", allRows);
+        model.addAttribute("resultColumns", result.headers());
+        model.addAttribute("isLastPage", result.lastPage());
+        addKeysetPaging(path, page, result.lastKey(), model);
+        model.addAttribute("message", "Query executed successfully (seeking on " + key.name() + ").");
+        return true;
+    }
+
+    /**
+     * Pages a Mongo query by seeking past the previous page's last document when asked to and
+     * the query allows it, otherwise with skip.
+     */
+    private void runMongoPage(ConnectionProfile profile, String sql, int page, int size, QueryPaging paging, Model model) throws Exception {
+        if (paging.keyset()) {
+            List<String> path = decodeKeysetPath(paging.keysetPath());
+            String afterKey = path.isEmpty() ? null : path.get(path.size() - 1);
+            MongoQueryService.SeekPage result = mongoQueries.seekPage(profile, sql, afterKey, keysetPage(path, page) - 1, size);
+            if (result != null) {
+                if (!result.rows().isEmpty()) model.addAttribute("resultColumns", result.rows().get(0));
+                model.addAttribute("results", result.rows());
+                model.addAttribute("isLastPage", result.lastPage());
+                addKeysetPaging(path, page, result.lastKey(), model);
+                model.addAttribute("message", "Query executed successfully (seeking on " + result.key() + ").");
+                return;
+            }
+        }
+
+        // The first row is the header
+        List<List<Object>> results = mongoQueries.page(profile, sql, (page - 1) * size, size + 1);
+        boolean isLastPage = results.size() - 1 <= size;
+        if (results.size() - 1 > size) results = results.subList(0, size + 1);
+
+        if (!results.isEmpty()) model.addAttribute("resultColumns", results.get(0));
+        model.addAttribute("results", results);
+        model.addAttribute("isLastPage", isLastPage);
+        model.addAttribute("message", "Query executed successfully.");
+    }
+
+    /**
+     * The page a keyset path leads to. Paging back past the oldest key kept lands on page 1.
+     */
+    private int keysetPage(List<String> path, int page) {
+        return path.isEmpty() ? 1 : Math.max(page, path.size() + 1);
+    }
+
+    private void addKeysetPaging(List<String> path, int page, String lastKey, Model model) {
+        model.addAttribute("currentPage", keysetPage(path, page));
+        model.addAttribute("keysetMode", true);
+        model.addAttribute("keysetPrevPath", encodeKeysetPath(path.isEmpty() ? path : path.subList(0, path.size() - 1)));
+        List<String> nextPath = new ArrayList<>(path);
+        if (lastKey != null) nextPath.add(lastKey);
+        if (nextPath.size() > MAX_KEYSET_PATH) nextPath = nextPath.subList(nextPath.size() - MAX_KEYSET_PATH, nextPath.size());
+        model.addAttribute("keysetNextPath", encodeKeysetPath(nextPath));
+    }
+
+    private List<String> decodeKeysetPath(String keysetPath) {
+        if (keysetPath.isEmpty()) return new ArrayList<>();
+        String[] keys = keysetPath.split(",");
+        return new ArrayList<>(Arrays.stream(keys, Math.max(0, keys.length - MAX_KEYSET_PATH), keys.length)
+                .map(k -> URLDecoder.decode(k, StandardCharsets.UTF_8))
+                .toList());
+    }
+
+    private String encodeKeysetPath(List<String> keys) {
+        return String.join(",", keys.stream().map(k -> URLEncoder.encode(k, StandardCharsets.UTF_8)).toList());
+    }
+
+    private boolean isDdl(String upperSql) {
+        return upperSql.startsWith("CREATE") || upperSql.startsWith("ALTER") || upperSql.startsWith("DROP")
+                || upperSql.startsWith("RENAME") || upperSql.startsWith("TRUNCATE") || upperSql.startsWith("COMMENT");
+    }
+
     private String updateJdbcUrl(String jdbcUrl, String database) {
         jdbcUrl = jdbcUrl.trim();
 
@@ -326,29 +532,81 @@ public class ConnectionController {
         }
     }
 
+    private static Path saveUpload(MultipartFile file) throws IOException {
+        Path upload = Files.createTempFile("dbstudio-upload-", ".tmp");
+        file.transferTo(upload);
+        return upload;
+    }
+
+    /**
+     * Submits a job that owns the uploaded file, deleting the file if the job is not accepted.
+     */
+    private JobManager.Job submitOrDiscard(Path spooled, UploadManager.Upload upload, Callable<JobManager.Job> submit) throws Exception {
+        try {
+            return submit.call();
+        } catch (Exception e) {
+            discard(spooled, upload);
+            throw e;
+        }
+    }
+
+    private void discard(Path spooled, UploadManager.Upload upload) throws IOException {
+        if (upload != null) uploads.discard(upload);
+        if (spooled != null) Files.deleteIfExists(spooled);
+    }
+
     private boolean isMongo(ConnectionProfile profile) {
         return profile.getMongoUri() != null && !profile.getMongoUri().isEmpty();
     }
 
     @PostMapping("/backup")
-    public String backupDatabase(@ModelAttribute ConnectionProfile profile, Model model) {
+    public String backupDatabase(@ModelAttribute ConnectionProfile profile,
+                                 @RequestParam(defaultValue = "logical") String mode,
+                                 HttpSession session,
+                                 Model model) {
         try {
             profile.setServerName(extractHost(profile.getJdbcUrl()));
-            profile.setDatabaseName(extractDatabaseName(profile.getJdbcUrl()));
+            profile.setDatabaseName(isMongo(profile) ? extractMongoDatabaseName(profile.getMongoUri()) : extractDatabaseName(profile.getJdbcUrl()));
             model.addAttribute("profile", profile);
             model.addAttribute("tables", service.listTablesOrDatabases(profile));
             model.addAttribute("databases", service.listDatabases(profile));
 
-            boolean success;
             try {
-                success = isMongo(profile) ? service.backupMongo(profile) : service.backupJdbc(profile);
-                if (success) {
-                    model.addAttribute("message", "Backup successful");
-                    model.addAttribute("error", null);
-                } else {
-                    model.addAttribute("error", "Backup failed");
-                    model.addAttribute("message", null);
-                }
+                boolean logical = mode.equalsIgnoreCase("logical") || mode.equalsIgnoreCase("incremental");
+                int connections = !isMongo(profile) && logical ? logicalBackups.connectionsNeeded() : 1;
+                JobManager.Job job = jobManager.submit(session.getId(), "backup", "Backup of " + profile.getDatabaseName(), profile, connections, j -> {
+                    if (isMongo(profile)) {
+                        Path archive = jobManager.newArtifact(j, "zip");
+                        MongoBackupManifest manifest = mongoBackups.backup(profile, archive, j);
+                        j.setArtifact(archive);
+                        long documents = manifest.collections().stream().mapToLong(MongoBackupManifest.Collection::documents).sum();
+                        return "Backup successful: " + manifest.collections().size() + " collection(s), " + documents + " document(s) written to " + archive.getFileName();
+                    }
+                    if (logical) {
+                        Path archive = jobManager.newArtifact(j, "zip");
+                        BackupManifest manifest = mode.equalsIgnoreCase("incremental")
+                                ? logicalBackups.backupIncremental(profile, archive, j)
+                                : logicalBackups.backup(profile, archive, j);
+                        j.setArtifact(archive);
+                        long rows = manifest.tables().stream().mapToLong(BackupManifest.Table::rows).sum();
+                        if (manifest.isIncremental()) {
+                            long changed = manifest.tables().stream().filter(BackupManifest.Table::isChanges).count();
+                            return "Incremental backup successful: changes of " + changed + " table(s) since "
+                                    + manifest.chain().getLast() + ", " + rows + " row(s) written to " + archive.getFileName();
+                        }
+                        return "Backup successful: " + manifest.tables().size() + " table(s), " + rows + " row(s) written to " + archive.getFileName();
+                    }
+                    File raw = service.backupJdbc(profile);
+                    if (raw == null) throw new IllegalStateException("Backup failed");
+                    if (!raw.isFile()) {
+                        // SQL Server wrote it on the database server, where it was verified
+                        return "Backup successful and verified by the server: " + raw.getPath();
+                    }
+                    Path artifact = artifacts.compress(raw.toPath(), jobManager.newArtifact(j, "bak"), j);
+                    j.setArtifact(artifact);
+                    return "Backup successful: written to " + artifact.getFileName() + " with checksums";
+                });
+                model.addAttribute("job", job.snapshot());
             } catch (Exception e) {
                 model.addAttribute("error", "Backup failed: " + service.getFriendlyErrorMessage(e, profile));
                 model.addAttribute("message", null);
@@ -364,22 +622,16 @@ public class ConnectionController {
     @PostMapping("/restore")
     public String restoreDatabase(@ModelAttribute ConnectionProfile profile,
                                   @RequestParam("file") MultipartFile file,
+                                  HttpSession session,
                                   Model model) {
         try {
             model.addAttribute("profile", profile);
             model.addAttribute("tables", service.listTablesOrDatabases(profile));
             model.addAttribute("databases", service.listDatabases(profile));
 
-            boolean success;
             try {
-                success = isMongo(profile) ? service.restoreMongo(profile, file) : service.restoreJdbc(profile, file);
-                if (success) {
-                    model.addAttribute("message", "Restore successful");
-                    model.addAttribute("error", null);
-                } else {
-                    model.addAttribute("error", "Restore failed");
-                    model.addAttribute("message", null);
-                }
+                String filename = file.getOriginalFilename() != null ? file.getOriginalFilename() : "backup";
+                model.addAttribute("job", submitRestore(session, profile, filename, saveUpload(file), null).snapshot());
             } catch (Exception e) {
                 model.addAttribute("error", "Restore failed: " + service.getFriendlyErrorMessage(e, profile));
                 model.addAttribute("message", null);
@@ -392,14 +644,77 @@ public class ConnectionController {
         return "columns";
     }
 
+    /**
+     * Starts a restore from a chunked upload; the restore waits until the upload is complete.
+     */
+    @PostMapping("/restore/start")
+    @ResponseBody
+    public ResponseEntity<?> startRestore(@ModelAttribute ConnectionProfile profile,
+                                          @RequestParam String uploadId,
+                                          HttpSession session) {
+        UploadManager.Upload upload = uploads.find(session.getId(), uploadId);
+        if (upload == null) return ResponseEntity.badRequest().body("Upload not found or expired.");
+        try {
+            return ResponseEntity.ok(submitRestore(session, profile, upload.getFilename(), null, upload).snapshot());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Restore failed: " + service.getFriendlyErrorMessage(e, profile));
+        }
+    }
+
+    /**
+     * Submits a restore job reading either a spooled multipart file or a chunked upload; the job
+     * deletes the file when it is done.
+     */
+    private JobManager.Job submitRestore(HttpSession session, ConnectionProfile profile, String filename,
+                                         Path spooled, UploadManager.Upload upload) throws Exception {
+        // Whether it is a logical backup is only known once the upload is complete
+        int connections = isMongo(profile) ? 1 : logicalRestores.connectionsNeeded();
+        return submitOrDiscard(spooled, upload, () -> jobManager.submit(session.getId(), "restore", "Restore of " + filename, profile, connections, j -> {
+            try {
+                // Restore tools need the complete file
+                if (upload != null) upload.awaitComplete();
+                File backupFile = upload != null ? upload.getFile().toFile() : spooled.toFile();
+                if (isMongo(profile) && mongoBackups.isMongoBackup(backupFile)) {
+                    MongoBackupManifest manifest = mongoBackups.restore(profile, backupFile.toPath(), j);
+                    long documents = manifest.collections().stream().mapToLong(MongoBackupManifest.Collection::documents).sum();
+                    return "Restore successful: " + manifest.collections().size() + " collection(s), " + documents + " document(s) loaded and verified";
+                }
+                if (!isMongo(profile) && logicalRestores.isLogicalBackup(backupFile)) {
+                    BackupManifest manifest = logicalRestores.restore(profile, backupFile.toPath(), j);
+                    service.invalidateMetadata(profile);
+                    long rows = manifest.tables().stream().mapToLong(BackupManifest.Table::rows).sum();
+                    return "Restore successful: " + manifest.tables().size() + " table(s), " + rows + " row(s) loaded and verified";
+                }
+                boolean success = isMongo(profile)
+                        ? service.restoreMongo(profile, backupFile, filename)
+                        : service.restoreJdbc(profile, backupFile);
+                if (!success) throw new IllegalStateException("Restore failed");
+                return "Restore successful";
+            } finally {
+                discard(spooled, upload);
+            }
+        }));
+    }
+
     private void runQueryInternal(ConnectionProfile profile, String sql, Model model) {
         model.addAttribute("sql", sql);
 
         try {
             if (isMongo(profile)) {
                 try {
-                    List<List<Object>> results = service.executeMongoQuery(profile, sql);
-                    if (!results.isEmpty()) model.addAttribute("resultColumns", results.get(0));
+                    List<List<Object>> results = new ArrayList<>();
+                    mongoQueries.stream(profile, sql, new MongoQueryService.RowSink() {
+                        @Override
+                        public void header(List<String> columns) {
+                            results.add(new ArrayList<>(columns));
+                        }
+
+                        @Override
+                        public void row(List<Object> values) {
+                            results.add(values);
+                        }
+                    }, JobProgress.NONE);
+                    model.addAttribute("resultColumns", results.get(0));
                     model.addAttribute("results", results);
                     return;
                 } catch (Exception e) {
@@ -476,16 +791,18 @@ public class ConnectionController {
     }
 
     @PostMapping("/generate-excel")
-    public ResponseEntity<byte[]> generateExcel(@ModelAttribute ConnectionProfile profile, @RequestParam String sql) {
+    public ResponseEntity<StreamingResponseBody> generateExcel(@ModelAttribute ConnectionProfile profile, @RequestParam String sql) {
         try {
-            List<List<Object>> results;
-
             // Handle MongoDB
             if (isMongo(profile)) {
-                results = service.executeMongoQuery(profile, sql);
-            } else {
-                String normalizedSql = normalizeVendorSql(profile.getJdbcUrl(), sql);
+                MongoQuery.parse(sql); // reject a malformed query before the download starts
+                return excelResponse(out -> exportService.writeMongoExcel(profile, sql, out, JobProgress.NONE));
+            }
+
+            String normalizedSql = normalizeVendorSql(profile.getJdbcUrl(), sql);
 
+            if (!ExportService.isExportableQuery(normalizedSql)) {
+                // Statements other than SELECT run once here; their (small) output is sent as-is
                 try (Connection conn = service.getConnection(profile);
                      Statement stmt = conn.createStatement()) {
 
@@ -493,84 +810,116 @@ public class ConnectionController {
 
                     if (!hasResultSet) {
                         // ❌ Non-SELECT queries (INSERT/UPDATE/DELETE)
-                        int updateCount = stmt.getUpdateCount();
-                        return ResponseEntity.ok()
-                                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=query-results.xlsx")
-                                .contentType(MediaType.parseMediaType(
-                                        "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
-                                .body(makeMessageWorkbook("Query executed, " + updateCount + " row(s) affected."));
+                        byte[] message = makeMessageWorkbook("Query executed, " + stmt.getUpdateCount() + " row(s) affected.");
+                        return excelResponse(out -> out.write(message));
                     }
-
-                    // ✅ SELECT queries → build results
                     try (ResultSet rs = stmt.getResultSet()) {
-                        results = new ArrayList<>();
-                        ResultSetMetaData meta = rs.getMetaData();
-                        int colCount = meta.getColumnCount();
-
-                        // header row
-                        List<Object> headers = new ArrayList<>();
-                        for (int i = 1; i <= colCount; i++) {
-                            headers.add(meta.getColumnLabel(i));
-                        }
-                        results.add(headers);
-
-                        // data rows
-                        while (rs.next()) {
-                            List<Object> row = new ArrayList<>();
-                            for (int i = 1; i <= colCount; i++) {
-                                row.add(rs.getObject(i));
-                            }
-                            results.add(row);
-                        }
+                        List<List<Object>> results = ResultSetUtil.resultSetToList(rs);
+                        return excelResponse(out -> exportService.writeExcel(results, out));
                     }
                 }
             }
 
-            if (results == null || results.isEmpty()) {
-                return ResponseEntity.noContent().build();
-            }
-
-            // ✅ Generate Excel from results
-            byte[] excelBytes = makeExcel(results);
-
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=query-results.xlsx")
-                    .contentType(MediaType.parseMediaType(
-                            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
-                    .body(excelBytes);
+            // ✅ SELECT queries → stream rows from the cursor into the workbook
+            return excelResponse(out -> {
+                try {
+                    exportService.writeExcel(profile, normalizedSql, out);
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    throw new IOException("Excel export failed: " + e.getMessage(), e);
+                }
+            });
 
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.internalServerError()
-                    .body(("Failed to generate Excel: " + e.getMessage()).getBytes());
+                    .body(out -> out.write(("Failed to generate Excel: " + e.getMessage()).getBytes()));
         }
     }
 
-    private byte[] makeExcel(List<List<Object>> results) throws Exception {
-        Workbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet("Query Results");
+    private ResponseEntity<StreamingResponseBody> excelResponse(StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=query-results.xlsx")
+                .contentType(MediaType.parseMediaType(
+                        "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
+                .body(body);
+    }
 
-        for (int i = 0; i < results.size(); i++) {
-            Row row = sheet.createRow(i);
-            List<Object> rowData = results.get(i);
-            for (int j = 0; j < rowData.size(); j++) {
-                row.createCell(j).setCellValue(
-                        rowData.get(j) != null ? rowData.get(j).toString() : ""
-                );
+    @PostMapping("/export/csv")
+    public ResponseEntity<StreamingResponseBody> exportCsv(@ModelAttribute ConnectionProfile profile, @RequestParam String sql) {
+        boolean mongo = isMongo(profile);
+        if (!mongo && !ExportService.isExportableQuery(sql)) {
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body(out -> out.write("CSV export is only available for SELECT queries.".getBytes()));
+        }
+        if (mongo) {
+            try {
+                MongoQuery.parse(sql);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest()
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .body(out -> out.write(e.getMessage().getBytes()));
             }
         }
+        String normalizedSql = mongo ? sql : normalizeVendorSql(profile.getJdbcUrl(), sql);
 
-        // auto-size columns
-        if (!results.isEmpty()) {
-            for (int i = 0; i < results.get(0).size(); i++) {
-                sheet.autoSizeColumn(i);
+        // Rows are written while the cursor is read; nothing is buffered beyond the writer
+        StreamingResponseBody body = out -> {
+            try {
+                if (mongo) exportService.writeMongoCsv(profile, normalizedSql, out, JobProgress.NONE);
+                else exportService.writeCsv(profile, normalizedSql, out);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                e.printStackTrace();
+                throw new IOException("CSV export failed: " + e.getMessage(), e);
             }
-        }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=query-results.csv")
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .body(body);
+    }
 
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        workbook.write(out);
-        workbook.close();
-        return out.toByteArray();
+    /**
+     * Writes the query result to a CSV or Excel file in the exports folder as a background job.
+     */
+    @PostMapping("/export/job")
+    public String exportJob(@ModelAttribute ConnectionProfile profile,
+                            @RequestParam String sql,
+                            @RequestParam(defaultValue = "csv") String format,
+                            HttpSession session,
+                            Model model) {
+        try {
+            boolean mongo = isMongo(profile);
+            profile.setServerName(mongo ? extractMongoServerName(profile.getMongoUri()) : extractHost(profile.getJdbcUrl()));
+            profile.setDatabaseName(mongo ? extractMongoDatabaseName(profile.getMongoUri()) : extractDatabaseName(profile.getJdbcUrl()));
+            model.addAttribute("profile", profile);
+            model.addAttribute("sql", sql);
+            model.addAttribute("tables", service.listTablesOrDatabases(profile));
+            model.addAttribute("databases", service.listDatabases(profile));
+
+            if (!mongo && !ExportService.isExportableQuery(sql)) {
+                model.addAttribute("error", "Background export is only available for SELECT queries.");
+                return "columns";
+            }
+            if (mongo) MongoQuery.parse(sql);
+            String normalizedSql = mongo ? sql : normalizeVendorSql(profile.getJdbcUrl(), sql);
+            boolean excel = format.equalsIgnoreCase("xlsx");
+            JobManager.Job job = jobManager.submit(session.getId(), "export", "Export to " + (excel ? "Excel" : "CSV"), profile, j -> {
+                Path file = jobManager.newArtifact(j, excel ? "xlsx" : "csv");
+                exportService.exportToFile(profile, normalizedSql, excel, file, j);
+                j.setArtifact(file);
+                return "Export finished: " + j.snapshot().rows() + " row(s) written to " + file.getFileName();
+            });
+            model.addAttribute("job", job.snapshot());
+        } catch (Exception e) {
+            model.addAttribute("error", "Export failed: " + e.getMessage());
+        }
+        return "columns";
     }
 
     private byte[] makeMessageWorkbook(String message) throws Exception {
@@ -589,6 +938,11 @@ public class ConnectionController {
     public String importData(@ModelAttribute ConnectionProfile profile,
                              @RequestParam String table,
                              @RequestParam("file") MultipartFile file,
+                             @RequestParam(defaultValue = "false") boolean resumable,
+                             @RequestParam(defaultValue = "false") boolean staged,
+                             @RequestParam(defaultValue = "false") boolean resume,
+                             @RequestParam(defaultValue = "false") boolean quarantine,
+                             HttpSession session,
                              RedirectAttributes redirectAttributes,
                              Model model) {
         try {
@@ -605,19 +959,15 @@ public class ConnectionController {
                 return "columns";
             }
 
+            if (!isImportable(filename)) {
+                model.addAttribute("error", "Unsupported file type: only .xlsx, .xls, or .csv allowed.");
+                return "columns";
+            }
+
             try {
-                if (filename.endsWith(".xlsx") || filename.endsWith(".xls")) {
-                    service.importExcelToTable(profile, table, file.getInputStream());
-                } else if (filename.endsWith(".csv")) {
-                    service.importCsvToTable(profile, table, file.getInputStream());
-                } else {
-                    model.addAttribute("error", "Unsupported file type: only .xlsx, .xls, or .csv allowed.");
-                    return "columns";
-                }
-                model.addAttribute("message", "Import successful!");
-            } catch (SQLException e) {
-                model.addAttribute("error", "Import failed: " + e.getMessage());
-                e.printStackTrace();
+                ImportOptions options = new ImportOptions(resumable, staged, resume, quarantine, filename, file.getSize());
+                // The multipart file is gone once this request ends, so the job reads its own copy
+                model.addAttribute("job", submitImport(session, profile, table, options, saveUpload(file), null).snapshot());
             } catch (Exception e) {
                 model.addAttribute("error", "Import failed: " + e.getMessage());
                 e.printStackTrace();
@@ -635,4 +985,65 @@ public class ConnectionController {
         return "columns";
     }
 
-}
\ No newline at end of file
+    /**
+     * Starts an import from a chunked upload. CSV parsing begins with the first chunk; Excel
+     * files are read once the upload is complete.
+     */
+    @PostMapping("/import/start")
+    @ResponseBody
+    public ResponseEntity<?> startImport(@ModelAttribute ConnectionProfile profile,
+                                         @RequestParam String table,
+                                         @RequestParam String uploadId,
+                                         @RequestParam(defaultValue = "false") boolean resumable,
+                                         @RequestParam(defaultValue = "false") boolean staged,
+                                         @RequestParam(defaultValue = "false") boolean resume,
+                                         @RequestParam(defaultValue = "false") boolean quarantine,
+                                         HttpSession session) {
+        UploadManager.Upload upload = uploads.find(session.getId(), uploadId);
+        if (upload == null) return ResponseEntity.badRequest().body("Upload not found or expired.");
+        if (!isImportable(upload.getFilename())) {
+            return ResponseEntity.badRequest().body("Unsupported file type: only .xlsx, .xls, or .csv allowed.");
+        }
+        try {
+            ImportOptions options = new ImportOptions(resumable, staged, resume, quarantine, upload.getFilename(), upload.getSize());
+            return ResponseEntity.ok(submitImport(session, profile, table, options, null, upload).snapshot());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.badRequest().body("Import failed: " + e.getMessage());
+        }
+    }
+
+    private static boolean isImportable(String filename) {
+        return filename.endsWith(".csv") || filename.endsWith(".xlsx") || filename.endsWith(".xls");
+    }
+
+    /**
+     * Submits an import job reading either a spooled multipart file or a chunked upload; the job
+     * deletes the file when it is done.
+     */
+    private JobManager.Job submitImport(HttpSession session, ConnectionProfile profile, String table, ImportOptions options,
+                                        Path spooled, UploadManager.Upload upload) throws Exception {
+        String filename = options.sourceName();
+        return submitOrDiscard(spooled, upload, () -> jobManager.submit(session.getId(), "import", "Import of " + filename + " into " + table, profile,
+                importPipeline.connectionsNeeded(profile), j -> {
+            try {
+                ImportResult result;
+                if (filename.endsWith(".csv")) {
+                    j.setTotalBytes(options.sourceSize());
+                    try (InputStream in = new CountingInputStream(
+                            upload != null ? upload.openStream() : Files.newInputStream(spooled), j::addBytes)) {
+                        result = service.importCsvToTable(profile, table, in, options, j);
+                    }
+                } else {
+                    // The Excel readers need random access to the whole file
+                    if (upload != null) upload.awaitComplete();
+                    result = service.importExcelToTable(profile, table, upload != null ? upload.getFile().toFile() : spooled.toFile(), options, j);
+                }
+                if (result.rejectFile() != null) j.setArtifact(Path.of(result.rejectFile()));
+                return result.summary();
+            } finally {
+                discard(spooled, upload);
+            }
+        }));
+    }
+}
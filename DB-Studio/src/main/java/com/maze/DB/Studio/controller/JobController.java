@@ -0,0 +1,95 @@
+package com.maze.DB.Studio.controller;
+
+import com.maze.DB.Studio.model.ArtifactChecksums;
+import com.maze.DB.Studio.model.JobSnapshot;
+import com.maze.DB.Studio.service.BackupArtifactService;
+import com.maze.DB.Studio.service.JobManager;
+import com.maze.DB.Studio.util.FileDownloads;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Status, progress events, cancellation and downloads for background jobs. A job is only
+ * visible to the session that started it.
+ */
+@Controller
+@RequiredArgsConstructor
+@RequestMapping("/db/jobs")
+public class JobController {
+
+    private final JobManager jobManager;
+    private final BackupArtifactService artifacts;
+
+    @GetMapping("/{id}")
+    @ResponseBody
+    public ResponseEntity<JobSnapshot> status(@PathVariable String id, HttpSession session) {
+        JobManager.Job job = jobManager.find(session.getId(), id);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job.snapshot());
+    }
+
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> events(@PathVariable String id, HttpSession session) {
+        JobManager.Job job = jobManager.find(session.getId(), id);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(jobManager.subscribe(job));
+    }
+
+    @PostMapping("/{id}/cancel")
+    @ResponseBody
+    public ResponseEntity<JobSnapshot> cancel(@PathVariable String id, HttpSession session) {
+        JobManager.Job job = jobManager.find(session.getId(), id);
+        if (job == null) return ResponseEntity.notFound().build();
+        jobManager.cancel(job);
+        return ResponseEntity.ok(job.snapshot());
+    }
+
+    /**
+     * Downloads the file a finished job produced (an export or a backup archive). Supports Range
+     * requests, so a broken download of a large backup can be resumed.
+     */
+    @GetMapping("/{id}/artifact")
+    public void download(@PathVariable String id, HttpSession session,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        JobManager.Job job = jobManager.find(session.getId(), id);
+        Path artifact;
+        try {
+            if (job == null || job.getArtifact() == null) throw new IllegalArgumentException("No file for this job");
+            artifact = artifacts.resolveArtifact(job.getArtifact());
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, e.getMessage());
+            return;
+        }
+        FileDownloads.serve(artifact, request, response);
+    }
+
+    /**
+     * Starts a job that checks the file a finished job produced against its recorded checksums.
+     */
+    @PostMapping("/{id}/verify")
+    @ResponseBody
+    public ResponseEntity<?> verify(@PathVariable String id, HttpSession session) {
+        JobManager.Job job = jobManager.find(session.getId(), id);
+        if (job == null) return ResponseEntity.notFound().build();
+        try {
+            if (job.getArtifact() == null) throw new IllegalArgumentException("This job did not produce a file.");
+            Path artifact = artifacts.resolveArtifact(job.getArtifact());
+            JobManager.Job verify = jobManager.submit(session.getId(), "verify", "Verify " + job.getArtifact(), "local:verify", j -> {
+                ArtifactChecksums checksums = artifacts.verify(artifact, j);
+                return "Verified " + checksums.file() + ": " + checksums.size() + " bytes in "
+                        + checksums.blockCrc32c().size() + " block(s), SHA-256 " + checksums.sha256();
+            });
+            return ResponseEntity.ok(verify.snapshot());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Verify failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.maze.DB.Studio.controller;
+
+import com.maze.DB.Studio.model.UploadStatus;
+import com.maze.DB.Studio.service.UploadManager;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * Chunked uploads: the browser starts an upload, PUTs fixed-size chunks with a CRC32 header
+ * and, after a dropped connection, asks for the missing chunks and resends only those.
+ */
+@Controller
+@RequiredArgsConstructor
+@RequestMapping("/db/uploads")
+public class UploadController {
+
+    private final UploadManager uploads;
+
+    @PostMapping
+    @ResponseBody
+    public ResponseEntity<UploadStatus> start(@RequestParam String filename, @RequestParam long size, HttpSession session) throws IOException {
+        return ResponseEntity.ok(status(uploads.start(session.getId(), filename, size)));
+    }
+
+    @GetMapping("/{id}")
+    @ResponseBody
+    public ResponseEntity<UploadStatus> status(@PathVariable String id, HttpSession session) {
+        UploadManager.Upload upload = uploads.find(session.getId(), id);
+        return upload == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status(upload));
+    }
+
+    @PutMapping("/{id}/chunks/{index}")
+    @ResponseBody
+    public ResponseEntity<String> chunk(@PathVariable String id,
+                                        @PathVariable int index,
+                                        @RequestHeader("X-Chunk-CRC32") String crc32,
+                                        HttpServletRequest request,
+                                        HttpSession session) throws IOException {
+        UploadManager.Upload upload = uploads.find(session.getId(), id);
+        if (upload == null) return ResponseEntity.notFound().build();
+        try {
+            upload.writeChunk(index, request.getInputStream(), crc32);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseBody
+    public ResponseEntity<Void> discard(@PathVariable String id, HttpSession session) {
+        UploadManager.Upload upload = uploads.find(session.getId(), id);
+        if (upload == null) return ResponseEntity.notFound().build();
+        uploads.discard(upload);
+        return ResponseEntity.noContent().build();
+    }
+
+    private static UploadStatus status(UploadManager.Upload upload) {
+        return new UploadStatus(upload.getId(), upload.getFilename(), upload.getSize(), upload.getChunkSize(), upload.missingChunks());
+    }
+}
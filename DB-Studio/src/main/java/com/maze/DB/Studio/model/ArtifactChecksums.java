@@ -0,0 +1,19 @@
+package com.maze.DB.Studio.model;
+
+import java.util.List;
+
+/**
+ * Integrity record of a backup artifact, stored next to it as {@code <file>.checksums.json}.
+ *
+ * @param codec          how the artifact is compressed: {@code gzip}, {@code none}, or {@code zip}
+ *                       for archives that compress their members themselves
+ * @param size           size of the artifact in bytes
+ * @param sha256         hex SHA-256 of the artifact as stored
+ * @param blockSize      size of the blocks covered by {@code blockCrc32c}; the last block may be shorter
+ * @param blockCrc32c    hex CRC32C of each block of the artifact as stored
+ * @param originalSize   size of the data before compression, or -1 when not compressed by this stage
+ * @param originalSha256 hex SHA-256 of the data before compression, or null
+ */
+public record ArtifactChecksums(String file, String codec, long size, String sha256, int blockSize,
+                                List<String> blockCrc32c, long originalSize, String originalSha256) {
+}
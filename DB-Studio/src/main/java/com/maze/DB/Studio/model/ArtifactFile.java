@@ -0,0 +1,10 @@
+package com.maze.DB.Studio.model;
+
+/**
+ * A file in the exports folder (an export or a backup archive), as listed for download.
+ *
+ * @param modified last modification time in epoch milliseconds
+ * @param verifiable whether a {@code .checksums.json} was recorded for it
+ */
+public record ArtifactFile(String name, long size, long modified, boolean verifiable) {
+}
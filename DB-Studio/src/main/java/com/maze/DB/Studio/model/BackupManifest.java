@@ -0,0 +1,89 @@
+package com.maze.DB.Studio.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.List;
+
+/**
+ * Describes a logical backup archive: the source database and, for every table, its
+ * definition and the data file holding its rows. Stored as {@code manifest.json} in the archive.
+ * <p>
+ * An incremental backup only holds the rows changed since the backup it builds on; {@code chain}
+ * names that backup and everything it builds on in turn, the full backup first. Restoring it
+ * needs every archive of the chain in the exports folder.
+ *
+ * @param createdAt   epoch milliseconds when the dump started
+ * @param compression compression of the data files inside the archive
+ * @param chain       file names of the earlier archives this one builds on, oldest first; empty
+ *                    (or null in version 1) for a full backup
+ */
+public record BackupManifest(String format, int version, String product, String database,
+                             long createdAt, String compression, List<Table> tables, List<String> chain) {
+
+    public static final String FORMAT = "dbstudio-logical-backup";
+    public static final int VERSION = 2;
+
+    public static final String MODE_FULL = "full";
+    public static final String MODE_CHANGES = "changes";
+
+    @JsonIgnore
+    public boolean isIncremental() {
+        return chain != null && !chain.isEmpty();
+    }
+
+    /**
+     * @param file      path of the table's data file inside the archive: COPY text format, one row per line
+     * @param rows      number of rows written
+     * @param sha256    hex SHA-256 of the uncompressed data file
+     * @param mode      {@link #MODE_FULL} (or null) when the file holds every row, {@link #MODE_CHANGES}
+     *                  when it only holds the rows changed since the previous backup of the chain
+     * @param watermark where the next incremental backup continues from, or null when the table has none
+     * @param keys      the primary keys of all rows at backup time, for changes only: rows missing
+     *                  from it were deleted
+     */
+    public record Table(String schema, String name, String file, long rows, String sha256,
+                        List<Column> columns, List<String> primaryKey,
+                        List<Index> indexes, List<ForeignKey> foreignKeys,
+                        String mode, Watermark watermark, Keys keys) {
+
+        @JsonIgnore
+        public boolean isChanges() {
+            return MODE_CHANGES.equals(mode);
+        }
+    }
+
+    /**
+     * @param jdbcType {@link java.sql.Types} code reported by the driver
+     * @param typeName database-specific type name, e.g. {@code varchar} or {@code int4}
+     */
+    public record Column(String name, int jdbcType, String typeName, int size, int scale,
+                         boolean nullable, String defaultValue, boolean autoIncrement) {
+    }
+
+    public record Index(String name, boolean unique, List<String> columns) {
+    }
+
+    public record ForeignKey(String name, List<String> columns, String refSchema, String refTable,
+                             List<String> refColumns) {
+    }
+
+    /**
+     * How a table's changes are found.
+     *
+     * @param kind   {@code rowversion} (SQL Server), {@code xmin} (PostgreSQL) or {@code timestamp}
+     *               (a last-modified column)
+     * @param column the column compared, {@code xmin} for PostgreSQL's system column
+     * @param value  rows at or above this value changed after the backup: hex for rowversion, the
+     *               64-bit transaction id for xmin, a JDBC timestamp literal otherwise
+     */
+    public record Watermark(String kind, String column, String value) {
+    }
+
+    /**
+     * @param file   path of the key file inside the archive, COPY text with the primary key columns
+     * @param rows   number of keys written
+     * @param sha256 hex SHA-256 of the uncompressed key file
+     */
+    public record Keys(String file, long rows, String sha256) {
+    }
+}
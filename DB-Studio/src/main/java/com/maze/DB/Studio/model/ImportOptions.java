@@ -0,0 +1,19 @@
+package com.maze.DB.Studio.model;
+
+/**
+ * How an import is run.
+ *
+ * @param resumable  commit every few batches and keep a checkpoint so a failed import can be resumed
+ * @param staged     load into a staging table and copy it into the target in one transaction at the end
+ * @param resume     continue from the checkpoint of an earlier import of the same file, if there is one
+ * @param quarantine isolate rows the database rejects into a reject file instead of failing the import
+ * @param sourceName name of the imported file; with its size it identifies the import for resuming
+ * @param sourceSize size of the imported file in bytes
+ */
+public record ImportOptions(boolean resumable, boolean staged, boolean resume, boolean quarantine,
+                            String sourceName, long sourceSize) {
+
+    public static ImportOptions defaults(String sourceName, long sourceSize) {
+        return new ImportOptions(false, false, false, false, sourceName, sourceSize);
+    }
+}
@@ -0,0 +1,22 @@
+package com.maze.DB.Studio.model;
+
+/**
+ * Outcome of an import.
+ *
+ * @param rowsImported    rows written by this run
+ * @param resumedAfterRow source row the run resumed after, or 0 when it started from the beginning
+ * @param rowsRejected    rows the database refused, written to the reject file
+ * @param rejectFile      path of the reject file, or null when no row was rejected
+ */
+public record ImportResult(long rowsImported, int resumedAfterRow, long rowsRejected, String rejectFile) {
+
+    /**
+     * A short user-facing summary.
+     */
+    public String summary() {
+        String summary = "Import successful! " + rowsImported + " row(s) imported";
+        if (resumedAfterRow > 0) summary += " (resumed after row " + resumedAfterRow + ")";
+        if (rowsRejected > 0) summary += "; " + rowsRejected + " row(s) rejected and written to " + rejectFile;
+        return summary + ".";
+    }
+}
@@ -0,0 +1,13 @@
+package com.maze.DB.Studio.model;
+
+/**
+ * Point-in-time view of a background job, as shown on the page and sent in progress events.
+ *
+ * @param rowsPerSecond average rate since the job started
+ * @param etaSeconds    estimated seconds left, or -1 when the total amount of work is unknown
+ * @param artifact      file name of the job's output in the exports folder, or null
+ */
+public record JobSnapshot(String id, String type, String description, String state,
+                          long rows, long bytes, long totalBytes, double rowsPerSecond, long etaSeconds,
+                          long elapsedMs, String message, String error, String artifact) {
+}
@@ -0,0 +1,28 @@
+package com.maze.DB.Studio.model;
+
+import java.util.List;
+
+/**
+ * Describes a MongoDB backup archive: one gzipped BSON file per collection (the same
+ * length-prefixed document stream as a {@code mongodump} {@code .bson} file) and this manifest,
+ * stored as {@code manifest.json}.
+ *
+ * @param createdAt epoch milliseconds when the dump started
+ */
+public record MongoBackupManifest(String format, int version, String database, long createdAt,
+                                  String compression, List<Collection> collections) {
+
+    public static final String FORMAT = "dbstudio-mongo-backup";
+    public static final int VERSION = 1;
+
+    /**
+     * @param file      path of the collection's BSON file inside the archive
+     * @param documents number of documents written
+     * @param sha256    hex SHA-256 of the uncompressed BSON file
+     * @param options   collection options (capped, validator, collation, ...) as extended JSON
+     * @param indexes   index specifications as returned by {@code listIndexes}, as extended JSON
+     */
+    public record Collection(String name, String file, long documents, String sha256,
+                             String options, List<String> indexes) {
+    }
+}
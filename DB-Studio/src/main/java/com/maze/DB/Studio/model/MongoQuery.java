@@ -0,0 +1,91 @@
+package com.maze.DB.Studio.model;
+
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A MongoDB query typed in the query box as {@code collection|filter|projection|sort|limit}.
+ * Everything after the collection name is optional and may be left empty, e.g.
+ * {@code orders|{"status":"open"}||{"createdAt":-1}|100}.
+ *
+ * @param limit maximum number of documents, or 0 for no limit
+ */
+public record MongoQuery(String collection, Document filter, Document projection, Document sort, int limit) {
+
+    public static MongoQuery parse(String query) {
+        List<String> parts = splitTopLevel(query == null ? "" : query.trim());
+        String collection = parts.get(0).trim();
+        if (collection.isEmpty()) throw new IllegalArgumentException("Mongo query must start with a collection name");
+        if (parts.size() > 5) throw new IllegalArgumentException("Mongo query has too many parts; expected collection|filter|projection|sort|limit");
+        Document filter = parts.size() > 1 ? parseDocument(parts.get(1), "filter") : null;
+        Document projection = parts.size() > 2 ? parseDocument(parts.get(2), "projection") : null;
+        Document sort = parts.size() > 3 ? parseDocument(parts.get(3), "sort") : null;
+        int limit = 0;
+        if (parts.size() > 4 && !parts.get(4).isBlank()) {
+            try {
+                limit = Integer.parseInt(parts.get(4).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Mongo query limit is not a number: " + parts.get(4).trim());
+            }
+            if (limit < 0) throw new IllegalArgumentException("Mongo query limit must not be negative");
+        }
+        return new MongoQuery(collection, filter != null ? filter : new Document(), projection, sort, limit);
+    }
+
+    /**
+     * Names of the top-level fields the projection includes, in order, or null when it does not
+     * fix the result's fields (no projection, or one that only excludes fields).
+     */
+    public List<String> projectedFields() {
+        if (projection == null || projection.isEmpty()) return null;
+        List<String> fields = new ArrayList<>();
+        boolean idExcluded = false;
+        for (var entry : projection.entrySet()) {
+            boolean included = !(entry.getValue() instanceof Number n && n.intValue() == 0) && !Boolean.FALSE.equals(entry.getValue());
+            if (entry.getKey().equals("_id")) idExcluded = !included;
+            else if (included) fields.add(entry.getKey().contains(".") ? entry.getKey().substring(0, entry.getKey().indexOf('.')) : entry.getKey());
+        }
+        if (fields.isEmpty()) return null; // exclusions only
+        if (!idExcluded) fields.add(0, "_id");
+        return fields.stream().distinct().toList();
+    }
+
+    private static Document parseDocument(String json, String what) {
+        if (json.isBlank()) return null;
+        try {
+            return Document.parse(json.trim());
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Mongo query " + what + " is not valid JSON: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Splits on {@code |} outside JSON strings, so a filter like {@code {"name":{"$regex":"a|b"}}}
+     * stays in one piece.
+     */
+    private static List<String> splitTopLevel(String query) {
+        List<String> parts = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inString = false, escaped = false;
+        char quote = 0;
+        for (char c : query.toCharArray()) {
+            if (inString) {
+                if (escaped) escaped = false;
+                else if (c == '\\') escaped = true;
+                else if (c == quote) inString = false;
+            } else if (c == '"' || c == '\'') {
+                inString = true;
+                quote = c;
+            } else if (c == '|') {
+                parts.add(current.toString());
+                current.setLength(0);
+                continue;
+            }
+            current.append(c);
+        }
+        parts.add(current.toString());
+        return parts;
+    }
+}
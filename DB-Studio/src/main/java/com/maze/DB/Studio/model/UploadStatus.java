@@ -0,0 +1,9 @@
+package com.maze.DB.Studio.model;
+
+import java.util.List;
+
+/**
+ * State of a chunked upload as reported to the browser, which sends the missing chunks.
+ */
+public record UploadStatus(String id, String filename, long size, int chunkSize, List<Integer> missingChunks) {
+}
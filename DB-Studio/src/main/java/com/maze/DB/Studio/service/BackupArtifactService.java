@@ -0,0 +1,237 @@
+package com.maze.DB.Studio.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maze.DB.Studio.model.ArtifactChecksums;
+import com.maze.DB.Studio.model.ArtifactFile;
+import com.maze.DB.Studio.util.BlockChecksumOutputStream;
+import com.maze.DB.Studio.util.CountingInputStream;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32C;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Post-processing of backup artifacts. Every artifact gets a {@code .checksums.json} next to it
+ * with its SHA-256 and a CRC32C per block, computed while it is written; dumps made by external
+ * tools are compressed in the same single pass. A verify job checks an artifact against that
+ * record without restoring it, reading blocks in parallel through memory-mapped I/O.
+ */
+@Service
+@RequiredArgsConstructor
+public class BackupArtifactService {
+
+    public static final String CHECKSUMS_SUFFIX = ".checksums.json";
+    private static final int SHA_WINDOW = 64 * 1024 * 1024;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${dbstudio.backup.codec:gzip}")
+    private String codec;
+    @Value("${dbstudio.backup.compression-level:6}")
+    private int compressionLevel;
+    @Value("${dbstudio.backup.block-size:4194304}")
+    private int blockSize;
+    @Value("${dbstudio.backup.verify-parallelism:4}")
+    private int verifyParallelism;
+    @Value("${dbstudio.exports.dir:./exports}")
+    private String exportsDir;
+
+    // ---- Writing ----
+
+    /**
+     * Wraps the stream an artifact is written to; pass it to {@link #writeChecksums} once closed.
+     */
+    public BlockChecksumOutputStream checksummed(OutputStream out) {
+        return new BlockChecksumOutputStream(out, blockSize);
+    }
+
+    /**
+     * Stores the checksums computed while the artifact was written.
+     *
+     * @param originalSize   size before compression, or -1 when this stage did not compress it
+     * @param originalSha256 SHA-256 before compression, or null
+     */
+    public void writeChecksums(Path artifact, String codec, BlockChecksumOutputStream written,
+                               long originalSize, String originalSha256) throws IOException {
+        ArtifactChecksums checksums = new ArtifactChecksums(artifact.getFileName().toString(), codec, written.getSize(),
+                written.getSha256(), written.getBlockSize(), written.getBlocks(), originalSize, originalSha256);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(checksumsFile(artifact).toFile(), checksums);
+    }
+
+    /**
+     * Compresses a finished dump into {@code target} (plus {@code .gz} when gzipping) with the
+     * configured codec and level, computing every checksum in the same pass, and deletes the dump.
+     */
+    public Path compress(Path source, Path target, JobProgress progress) throws IOException {
+        boolean gzip = codec.equalsIgnoreCase("gzip");
+        if (!gzip && !codec.equalsIgnoreCase("none")) throw new IllegalStateException("Unknown backup codec: " + codec);
+        Path artifact = gzip ? target.resolveSibling(target.getFileName() + ".gz") : target;
+        progress.setTotalBytes(Files.size(source));
+
+        MessageDigest original = sha256();
+        long originalSize;
+        BlockChecksumOutputStream checked = checksummed(new BufferedOutputStream(Files.newOutputStream(artifact), 64 * 1024));
+        try (InputStream in = new DigestInputStream(new CountingInputStream(Files.newInputStream(source), progress::addBytes), original);
+             OutputStream out = gzip ? new LeveledGzipOutputStream(checked, compressionLevel) : checked) {
+            originalSize = in.transferTo(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(artifact);
+            throw e;
+        }
+        writeChecksums(artifact, gzip ? "gzip" : "none", checked, originalSize, HexFormat.of().formatHex(original.digest()));
+        Files.delete(source);
+        return artifact;
+    }
+
+    private static class LeveledGzipOutputStream extends GZIPOutputStream {
+        LeveledGzipOutputStream(OutputStream out, int level) throws IOException {
+            super(out, 64 * 1024);
+            def.setLevel(level);
+        }
+    }
+
+    // ---- Verification ----
+
+    /**
+     * Re-reads the artifact and compares it with its recorded checksums: every block's CRC32C on
+     * up to {@code verify-parallelism} threads, and the SHA-256 of the whole file alongside.
+     *
+     * @throws IllegalStateException naming the damaged blocks when the artifact does not match
+     */
+    public ArtifactChecksums verify(Path artifact, JobProgress progress) throws Exception {
+        ArtifactChecksums expected = readChecksums(artifact);
+        long size = Files.size(artifact);
+        if (size != expected.size()) {
+            throw new IllegalStateException(artifact.getFileName() + " has " + size + " bytes but " + expected.size() + " were recorded");
+        }
+        progress.setTotalBytes(size);
+
+        int blocks = expected.blockCrc32c().size();
+        List<Integer> damaged = new ArrayList<>();
+        String sha256;
+        try (FileChannel channel = FileChannel.open(artifact, StandardOpenOption.READ);
+             ExecutorService pool = Executors.newFixedThreadPool(verifyParallelism, Thread.ofVirtual().factory())) {
+            try {
+                Future<String> whole = pool.submit(() -> sha256(channel, size));
+                List<Future<Boolean>> results = new ArrayList<>(blocks);
+                for (int i = 0; i < blocks; i++) {
+                    int block = i;
+                    results.add(pool.submit(() -> checkBlock(channel, expected, block, size, progress)));
+                }
+                for (int i = 0; i < blocks; i++) {
+                    if (!results.get(i).get()) damaged.add(i);
+                }
+                sha256 = whole.get();
+            } catch (InterruptedException e) {
+                pool.shutdownNow();
+                throw e;
+            }
+        }
+
+        long expectedBlocks = (size + expected.blockSize() - 1) / expected.blockSize();
+        if (!damaged.isEmpty() || blocks != expectedBlocks || !sha256.equals(expected.sha256())) {
+            StringBuilder sb = new StringBuilder("Verification of " + artifact.getFileName() + " failed:");
+            if (blocks != expectedBlocks) sb.append(" ").append(blocks).append(" block checksums recorded for ").append(expectedBlocks).append(" blocks;");
+            if (!damaged.isEmpty()) {
+                sb.append(" ").append(damaged.size()).append(" damaged block(s) at offset(s) ")
+                        .append(damaged.stream().limit(10).map(b -> String.valueOf((long) b * expected.blockSize())).reduce((a, b) -> a + ", " + b).orElse(""))
+                        .append(damaged.size() > 10 ? ", ..." : "").append(";");
+            }
+            if (!sha256.equals(expected.sha256())) sb.append(" SHA-256 mismatch");
+            throw new IllegalStateException(sb.toString());
+        }
+        return expected;
+    }
+
+    private static boolean checkBlock(FileChannel channel, ArtifactChecksums expected, int block, long size,
+                                      JobProgress progress) throws IOException {
+        long offset = (long) block * expected.blockSize();
+        long length = Math.min(expected.blockSize(), size - offset);
+        if (length <= 0) return false;
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        CRC32C crc = new CRC32C();
+        crc.update(buffer);
+        progress.addBytes(length);
+        return Long.toHexString(crc.getValue()).equals(expected.blockCrc32c().get(block));
+    }
+
+    private static String sha256(FileChannel channel, long size) throws IOException {
+        MessageDigest digest = sha256();
+        for (long offset = 0; offset < size; offset += SHA_WINDOW) {
+            digest.update(channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(SHA_WINDOW, size - offset)));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public ArtifactChecksums readChecksums(Path artifact) throws IOException {
+        Path file = checksumsFile(artifact);
+        if (!Files.exists(file)) throw new IllegalArgumentException("No checksums were recorded for " + artifact.getFileName());
+        return objectMapper.readValue(file.toFile(), ArtifactChecksums.class);
+    }
+
+    // ---- Files ----
+
+    /**
+     * Resolves a file name from a job result to the file in the exports folder, refusing names
+     * that would point anywhere else.
+     */
+    public Path resolveArtifact(String name) {
+        if (name == null || name.isBlank() || name.contains("/") || name.contains("\\") || name.startsWith(".")) {
+            throw new IllegalArgumentException("Invalid file name: " + name);
+        }
+        Path dir = Paths.get(exportsDir).toAbsolutePath().normalize();
+        Path file = dir.resolve(name).normalize();
+        if (!file.getParent().equals(dir) || !Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("File not found: " + name);
+        }
+        return file;
+    }
+
+    /**
+     * Exports and backups in the exports folder, newest first. Unlike a job's result these stay
+     * reachable after the job has expired or the server has restarted.
+     */
+    public List<ArtifactFile> listArtifacts() throws IOException {
+        Path dir = Paths.get(exportsDir).toAbsolutePath().normalize();
+        if (!Files.isDirectory(dir)) return List.of();
+        List<ArtifactFile> files = new ArrayList<>();
+        try (var entries = Files.list(dir)) {
+            for (Path file : entries.toList()) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(".") || name.endsWith(CHECKSUMS_SUFFIX) || !Files.isRegularFile(file)) continue;
+                files.add(new ArtifactFile(name, Files.size(file), Files.getLastModifiedTime(file).toMillis(),
+                        Files.isRegularFile(checksumsFile(file))));
+            }
+        }
+        files.sort(Comparator.comparingLong(ArtifactFile::modified).reversed());
+        return files;
+    }
+
+    public static Path checksumsFile(Path artifact) {
+        return artifact.resolveSibling(artifact.getFileName() + CHECKSUMS_SUFFIX);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,475 @@
+package com.maze.DB.Studio.service;
+
+import com.maze.DB.Studio.util.CopyTextFormat;
+import com.microsoft.sqlserver.jdbc.ISQLServerBulkData;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopy;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions;
+import com.microsoft.sqlserver.jdbc.SQLServerConnection;
+import com.mysql.cj.conf.PropertyKey;
+import com.mysql.cj.jdbc.JdbcConnection;
+import com.mysql.cj.jdbc.JdbcStatement;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Per-dialect strategies for writing import batches into a table. PostgreSQL uses
+ * {@code COPY FROM STDIN}, SQL Server the bulk copy API, and MySQL {@code LOAD DATA LOCAL INFILE}
+ * fed from a stream (only when the connection allows local infile). Everything else, or any
+ * dialect with native loading switched off, uses batched prepared INSERTs.
+ */
+public class BulkLoaders {
+
+    /**
+     * Supplies the batches of one import; returns null when there are no more.
+     */
+    @FunctionalInterface
+    public interface BatchSource {
+        ImportPipeline.Batch next() throws InterruptedException;
+    }
+
+    public interface Loader {
+        /**
+         * Writes every batch from the source and returns the number of rows inserted.
+         */
+        long load(BatchSource source) throws Exception;
+    }
+
+    public static Loader forConnection(Connection conn, InsertPlan plan, boolean nativeEnabled) throws SQLException {
+        return forConnection(conn, plan, nativeEnabled, false);
+    }
+
+    /**
+     * @param keepIdentity write the given values into SQL Server identity columns instead of
+     *                     letting the server generate them, e.g. when restoring a backup
+     */
+    public static Loader forConnection(Connection conn, InsertPlan plan, boolean nativeEnabled, boolean keepIdentity) throws SQLException {
+        if (nativeEnabled) {
+            String dbProduct = plan.getDbProduct();
+            if (dbProduct.contains("postgresql") && conn.isWrapperFor(PGConnection.class)) {
+                return new PostgresCopyLoader(conn, plan);
+            }
+            if (dbProduct.contains("sql server") && conn.isWrapperFor(SQLServerConnection.class)) {
+                return new SqlServerBulkCopyLoader(conn, plan, keepIdentity);
+            }
+            // LOAD DATA reads text in the connection character set, which cannot carry raw bytes
+            if (dbProduct.contains("mysql") && conn.isWrapperFor(JdbcConnection.class) && !plan.hasBinaryColumns() && allowsLocalInfile(conn)) {
+                return new MySqlLoadDataLoader(conn, plan);
+            }
+        }
+        return new BatchInsertLoader(conn, plan, keepIdentity && plan.getDbProduct().contains("sql server"));
+    }
+
+    /**
+     * Connector/J refuses LOAD DATA LOCAL unless the URL sets allowLoadLocalInfile=true, and the
+     * server rejects it unless local_infile is enabled.
+     */
+    private static boolean allowsLocalInfile(Connection conn) throws SQLException {
+        boolean clientAllowed = conn.unwrap(JdbcConnection.class).getPropertySet()
+                .getBooleanProperty(PropertyKey.allowLoadLocalInfile).getValue();
+        if (!clientAllowed) return false;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT @@GLOBAL.local_infile")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    /**
+     * Remembers the rows handed to a native loader so its (whole-stream) errors can still be
+     * located roughly in the source file.
+     */
+    private static class TrackingSource implements BatchSource {
+        private final BatchSource source;
+        private int lastRow;
+        private long rows;
+
+        TrackingSource(BatchSource source) {
+            this.source = source;
+        }
+
+        @Override
+        public ImportPipeline.Batch next() throws InterruptedException {
+            ImportPipeline.Batch batch = source.next();
+            if (batch != null && batch.rowNumbers().length > 0) lastRow = batch.rowNumbers()[batch.rowNumbers().length - 1];
+            if (batch != null) rows += batch.rows().size();
+            return batch;
+        }
+
+        /**
+         * Number of rows handed to the loader so far.
+         */
+        long rows() {
+            return rows;
+        }
+
+        SQLException failure(String loader, SQLException e) {
+            // Conversion errors already name their row
+            if (e.getMessage() != null && e.getMessage().startsWith("Error at row")) return e;
+            String where = lastRow > 0 ? " (at or before row " + lastRow + ")" : "";
+            return new SQLException(loader + " failed" + where + ": " + e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+        }
+    }
+
+    private static String[] toText(InsertPlan plan, ImportPipeline.Batch batch, int r, String[] fields) throws SQLException {
+        List<Object> row = batch.rows().get(r);
+        for (int i = 0; i < fields.length; i++) {
+            Object val = i < row.size() ? row.get(i) : null;
+            try {
+                fields[i] = plan.convertToText(i, val);
+            } catch (Exception e) {
+                throw new SQLException("Error at row " + batch.rowNumbers()[r] + ", column '" + plan.getColumns().get(i) + "' with value '" + val + "': " + e.getMessage(), e);
+            }
+        }
+        return fields;
+    }
+
+    // ---- Batched INSERT (all databases) ----
+
+    static class BatchInsertLoader implements Loader {
+        private final Connection conn;
+        private final InsertPlan plan;
+        private final boolean identityInsert;
+
+        BatchInsertLoader(Connection conn, InsertPlan plan, boolean identityInsert) {
+            this.conn = conn;
+            this.plan = plan;
+            this.identityInsert = identityInsert;
+        }
+
+        @Override
+        public long load(BatchSource source) throws SQLException, InterruptedException {
+            long rows = 0;
+            if (identityInsert) setIdentityInsert(true);
+            try (PreparedStatement ps = conn.prepareStatement(plan.getInsertSql())) {
+                for (ImportPipeline.Batch batch = source.next(); batch != null; batch = source.next()) {
+                    writeBatch(ps, batch);
+                    rows += batch.rows().size();
+                }
+            } finally {
+                if (identityInsert) setIdentityInsert(false);
+            }
+            return rows;
+        }
+
+        /**
+         * SQL Server only accepts explicit identity values while IDENTITY_INSERT is on, and only
+         * for one table per session at a time.
+         */
+        private void setIdentityInsert(boolean on) throws SQLException {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SET IDENTITY_INSERT " + plan.getTable() + (on ? " ON" : " OFF"));
+            }
+        }
+
+        private void writeBatch(PreparedStatement ps, ImportPipeline.Batch batch) throws SQLException {
+            try {
+                for (int r = 0; r < batch.rows().size(); r++) {
+                    plan.bindRow(ps, batch.rows().get(r), batch.rowNumbers()[r]);
+                    ps.addBatch();
+                }
+            } catch (SQLException e) {
+                ps.clearBatch();
+                throw e;
+            }
+            try {
+                ps.executeBatch();
+            } catch (BatchUpdateException e) {
+                int failed = failedIndex(e.getUpdateCounts(), batch.rows().size());
+                String where = failed >= 0
+                        ? "row " + batch.rowNumbers()[failed]
+                        : "rows " + batch.rowNumbers()[0] + "-" + batch.rowNumbers()[batch.rowNumbers().length - 1];
+                throw new SQLException("Error at " + where + ": " + e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+            }
+        }
+
+        /**
+         * Locates the failing statement of a batch: drivers either stop at it (fewer update counts
+         * than statements) or mark it with EXECUTE_FAILED. Returns -1 when it cannot be told.
+         */
+        private static int failedIndex(int[] updateCounts, int batchLength) {
+            if (updateCounts == null) return -1;
+            if (updateCounts.length < batchLength) return updateCounts.length;
+            for (int i = 0; i < updateCounts.length; i++) {
+                if (updateCounts[i] == Statement.EXECUTE_FAILED) return i;
+            }
+            return -1;
+        }
+    }
+
+    // ---- PostgreSQL COPY ----
+
+    static class PostgresCopyLoader implements Loader {
+        private final Connection conn;
+        private final InsertPlan plan;
+
+        PostgresCopyLoader(Connection conn, InsertPlan plan) {
+            this.conn = conn;
+            this.plan = plan;
+        }
+
+        @Override
+        public long load(BatchSource batches) throws SQLException, InterruptedException {
+            TrackingSource source = new TrackingSource(batches);
+            String sql = "COPY " + plan.getTable() + " (" + plan.getColumnList() + ") FROM STDIN";
+            CopyIn copy = conn.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+            try {
+                String[] fields = new String[plan.getColumns().size()];
+                StringBuilder sb = new StringBuilder(64 * 1024);
+                for (ImportPipeline.Batch batch = source.next(); batch != null; batch = source.next()) {
+                    sb.setLength(0);
+                    for (int r = 0; r < batch.rows().size(); r++) {
+                        CopyTextFormat.appendRow(sb, toText(plan, batch, r, fields));
+                    }
+                    byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+                    copy.writeToCopy(bytes, 0, bytes.length);
+                }
+                return copy.endCopy();
+            } catch (SQLException e) {
+                throw source.failure("COPY", e);
+            } finally {
+                if (copy.isActive()) copy.cancelCopy();
+            }
+        }
+    }
+
+    // ---- SQL Server bulk copy ----
+
+    static class SqlServerBulkCopyLoader implements Loader {
+        private final Connection conn;
+        private final InsertPlan plan;
+        private final boolean keepIdentity;
+
+        SqlServerBulkCopyLoader(Connection conn, InsertPlan plan, boolean keepIdentity) {
+            this.conn = conn;
+            this.plan = plan;
+            this.keepIdentity = keepIdentity;
+        }
+
+        @Override
+        public long load(BatchSource batches) throws SQLException {
+            TrackingSource source = new TrackingSource(batches);
+            BatchBulkData data = new BatchBulkData(plan, source);
+            try (SQLServerBulkCopy copy = new SQLServerBulkCopy(conn.unwrap(SQLServerConnection.class))) {
+                SQLServerBulkCopyOptions options = new SQLServerBulkCopyOptions();
+                options.setBulkCopyTimeout(0); // the default of 60 seconds is too short for large files
+                options.setKeepIdentity(keepIdentity);
+                copy.setBulkCopyOptions(options);
+                copy.setDestinationTableName(plan.getTable());
+                for (int i = 0; i < plan.getColumns().size(); i++) copy.addColumnMapping(i + 1, plan.getColumns().get(i));
+                copy.writeToServer(data);
+            } catch (SQLException e) {
+                throw source.failure("Bulk copy", e);
+            }
+            return data.rowsRead;
+        }
+    }
+
+    /**
+     * Presents the queued batches to SQLServerBulkCopy as one stream of typed rows.
+     */
+    private static class BatchBulkData implements ISQLServerBulkData {
+        private final transient InsertPlan plan;
+        private final transient BatchSource source;
+        private transient ImportPipeline.Batch batch;
+        private int index = -1;
+        private long rowsRead;
+
+        BatchBulkData(InsertPlan plan, BatchSource source) {
+            this.plan = plan;
+            this.source = source;
+        }
+
+        @Override
+        public Set<Integer> getColumnOrdinals() {
+            Set<Integer> ordinals = new LinkedHashSet<>();
+            for (int i = 1; i <= plan.getColumns().size(); i++) ordinals.add(i);
+            return ordinals;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return plan.getColumns().get(column - 1);
+        }
+
+        @Override
+        public int getColumnType(int column) {
+            return isTyped(column - 1) ? plan.getJdbcType(column - 1) : Types.NVARCHAR;
+        }
+
+        @Override
+        public int getPrecision(int column) {
+            int precision = plan.getPrecision(column - 1);
+            return precision > 0 ? precision : 4000;
+        }
+
+        @Override
+        public int getScale(int column) {
+            return plan.getScale(column - 1);
+        }
+
+        @Override
+        public Object[] getRowData() throws SQLException {
+            List<Object> row = batch.rows().get(index);
+            Object[] values = new Object[plan.getColumns().size()];
+            for (int i = 0; i < values.length; i++) {
+                Object val = i < row.size() ? row.get(i) : null;
+                try {
+                    Object converted = plan.convert(i, val);
+                    values[i] = converted == null || isTyped(i) ? converted : converted.toString();
+                } catch (Exception e) {
+                    throw new SQLException("Error at row " + batch.rowNumbers()[index] + ", column '" + plan.getColumns().get(i) + "' with value '" + val + "': " + e.getMessage(), e);
+                }
+            }
+            return values;
+        }
+
+        @Override
+        public boolean next() throws SQLException {
+            try {
+                while (batch == null || ++index >= batch.rows().size()) {
+                    batch = source.next();
+                    index = -1;
+                    if (batch == null) return false;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Bulk copy interrupted", e);
+            }
+            rowsRead++;
+            return true;
+        }
+
+        /**
+         * Columns whose type {@link InsertPlan#convert} understands; others are sent as text.
+         */
+        private boolean isTyped(int column) {
+            return switch (plan.getJdbcType(column)) {
+                case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT, Types.DECIMAL, Types.NUMERIC,
+                     Types.FLOAT, Types.DOUBLE, Types.REAL, Types.BIT, Types.BOOLEAN, Types.TIMESTAMP, Types.DATE,
+                     Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR, Types.LONGNVARCHAR,
+                     Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY -> true;
+                default -> false;
+            };
+        }
+    }
+
+    // ---- MySQL LOAD DATA LOCAL INFILE ----
+
+    static class MySqlLoadDataLoader implements Loader {
+        private final Connection conn;
+        private final InsertPlan plan;
+
+        MySqlLoadDataLoader(Connection conn, InsertPlan plan) {
+            this.conn = conn;
+            this.plan = plan;
+        }
+
+        /**
+         * With LOCAL, MySQL turns duplicate-key and conversion errors into warnings: it skips the
+         * row or stores a coerced value, and the statement still succeeds. Any warning, or fewer
+         * rows loaded than were sent, is therefore raised as an error so the caller rolls back
+         * and, when quarantining, bisects the batch down to the offending rows.
+         */
+        @Override
+        public long load(BatchSource batches) throws SQLException {
+            TrackingSource source = new TrackingSource(batches);
+            String sql = "LOAD DATA LOCAL INFILE 'import.tsv' INTO TABLE " + plan.getTable()
+                    + " CHARACTER SET utf8mb4 FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n'"
+                    + " (" + plan.getColumnList() + ")";
+            try (Statement stmt = conn.createStatement()) {
+                stmt.unwrap(JdbcStatement.class).setLocalInfileInputStream(new BatchInputStream(plan, source));
+                long loaded = stmt.executeLargeUpdate(sql);
+                List<String> warnings = warnings(stmt);
+                if (loaded != source.rows() || !warnings.isEmpty()) {
+                    throw new SQLException("loaded " + loaded + " of " + source.rows() + " row(s)"
+                            + (warnings.isEmpty() ? "" : ": " + String.join("; ", warnings)), "22000");
+                }
+                return loaded;
+            } catch (SQLException e) {
+                throw source.failure("LOAD DATA", e);
+            }
+        }
+
+        /**
+         * The first few warnings and errors the last statement left; notes are ignored.
+         */
+        private static List<String> warnings(Statement stmt) throws SQLException {
+            List<String> warnings = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery("SHOW WARNINGS")) {
+                while (rs.next() && warnings.size() < 5) {
+                    if (!"Note".equalsIgnoreCase(rs.getString("Level"))) warnings.add(rs.getString("Message"));
+                }
+            }
+            return warnings;
+        }
+    }
+
+    /**
+     * Encodes batches to tab-separated text lazily, as the driver reads the stream.
+     */
+    private static class BatchInputStream extends InputStream {
+        private final InsertPlan plan;
+        private final BatchSource source;
+        private final String[] fields;
+        private final StringBuilder sb = new StringBuilder(64 * 1024);
+        private byte[] buffer = new byte[0];
+        private int pos;
+        private boolean done;
+
+        BatchInputStream(InsertPlan plan, BatchSource source) {
+            this.plan = plan;
+            this.source = source;
+            this.fields = new String[plan.getColumns().size()];
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) return -1;
+            return buffer[pos++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (!fill()) return -1;
+            int n = Math.min(len, buffer.length - pos);
+            System.arraycopy(buffer, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+        private boolean fill() throws IOException {
+            while (pos >= buffer.length) {
+                if (done) return false;
+                try {
+                    ImportPipeline.Batch batch = source.next();
+                    if (batch == null) {
+                        done = true;
+                        return false;
+                    }
+                    sb.setLength(0);
+                    for (int r = 0; r < batch.rows().size(); r++) {
+                        CopyTextFormat.appendRow(sb, toText(plan, batch, r, fields));
+                    }
+                    buffer = sb.toString().getBytes(StandardCharsets.UTF_8);
+                    pos = 0;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Import cancelled");
+                } catch (SQLException e) {
+                    throw new IOException(e.getMessage(), e);
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.maze.DB.Studio.service;
+
+import com.maze.DB.Studio.model.ConnectionProfile;
+import com.maze.DB.Studio.model.ProfileKey;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.pool.HikariPool;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps one bounded HikariCP pool per connection target, keyed by {@link ProfileKey}.
+ * Pools that have not been borrowed from for a while are closed, and the number of
+ * live pools is capped by closing the least recently used idle ones.
+ */
+@Component
+public class ConnectionPoolManager {
+
+    @Value("${dbstudio.pool.max-pools:20}")
+    private int maxPools;
+    @Value("${dbstudio.pool.max-pool-size:8}")
+    private int maxPoolSize;
+    @Value("${dbstudio.pool.min-idle:1}")
+    private int minIdle;
+    @Value("${dbstudio.pool.connection-timeout-ms:30000}")
+    private long connectionTimeoutMs;
+    @Value("${dbstudio.pool.idle-pool-timeout-ms:600000}")
+    private long idlePoolTimeoutMs;
+    @Value("${dbstudio.pool.reserved-for-queries:1}")
+    private int reservedForQueries;
+    @Value("${dbstudio.cursor.max-per-target:2}")
+    private int maxCursorsPerTarget;
+
+    private final Map<ProfileKey, PooledTarget> pools = new ConcurrentHashMap<>();
+    private final AtomicInteger poolCounter = new AtomicInteger();
+
+    /**
+     * Borrows a connection for the given profile. Closing the connection returns it to the pool.
+     */
+    public Connection getConnection(ConnectionProfile profile) throws SQLException {
+        ProfileKey key = ProfileKey.of(profile);
+        while (true) {
+            PooledTarget target = pools.computeIfAbsent(key, k -> new PooledTarget());
+            HikariDataSource ds = target.dataSource(key, profile);
+            target.lastUsed = System.currentTimeMillis();
+            if (ds.isClosed()) {
+                // Lost a race with eviction; drop the stale entry and build a fresh pool
+                pools.remove(key, target);
+                continue;
+            }
+            return ds.getConnection();
+        }
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * Connections background work may hold on one target at a time: the pool less the ones kept
+     * free for interactive queries and metadata lookups and the ones open cursors may pin.
+     * Jobs size their workers to fit in it.
+     */
+    public int maxJobConnections() {
+        return Math.max(1, maxPoolSize - reservedForQueries - maxCursorsPerTarget);
+    }
+
+    /**
+     * Closes and forgets the pool for the given profile, e.g. after a restore replaced the database.
+     */
+    public void evict(ConnectionProfile profile) {
+        PooledTarget target = pools.remove(ProfileKey.of(profile));
+        if (target != null) target.close();
+    }
+
+    @Scheduled(fixedDelayString = "${dbstudio.pool.sweep-interval-ms:60000}")
+    public void evictIdlePools() {
+        long cutoff = System.currentTimeMillis() - idlePoolTimeoutMs;
+        pools.forEach((key, target) -> {
+            if (target.lastUsed < cutoff && target.isIdle()) {
+                if (pools.remove(key, target)) target.close();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        pools.values().forEach(PooledTarget::close);
+        pools.clear();
+    }
+
+    private void enforcePoolLimit() {
+        while (pools.size() > maxPools) {
+            Map.Entry<ProfileKey, PooledTarget> lru = pools.entrySet().stream()
+                    .filter(e -> e.getValue().dataSource != null && e.getValue().isIdle())
+                    .min(Comparator.comparingLong(e -> e.getValue().lastUsed))
+                    .orElse(null);
+            if (lru == null) return; // every pool is busy; let the cap be exceeded until they drain
+            if (pools.remove(lru.getKey(), lru.getValue())) lru.getValue().close();
+        }
+    }
+
+    private HikariDataSource createDataSource(ConnectionProfile profile) throws SQLException {
+        String jdbcUrl = profile.getJdbcUrl().trim();
+        loadDriver(profile, jdbcUrl);
+
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("dbstudio-pool-" + poolCounter.incrementAndGet());
+        config.setJdbcUrl(jdbcUrl);
+        // SQLite usually has no username/password
+        if (!jdbcUrl.startsWith("jdbc:sqlite:")) {
+            config.setUsername(profile.getUsername());
+            config.setPassword(profile.getPassword());
+        }
+        config.setMaximumPoolSize(maxPoolSize);
+        config.setMinimumIdle(Math.min(minIdle, maxPoolSize));
+        config.setConnectionTimeout(connectionTimeoutMs);
+
+        try {
+            return new HikariDataSource(config);
+        } catch (HikariPool.PoolInitializationException e) {
+            // Surface the driver's own error (login failed, unknown host, ...) to the caller
+            if (e.getCause() instanceof SQLException sqlException) throw sqlException;
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    private void loadDriver(ConnectionProfile profile, String jdbcUrl) throws SQLException {
+        try {
+            if (profile.getDriverClassName() != null && !profile.getDriverClassName().isBlank()) {
+                Class.forName(profile.getDriverClassName());
+            }
+            // Detect driver class based on JDBC URL
+            if (jdbcUrl.startsWith("jdbc:postgresql:")) {
+                Class.forName("org.postgresql.Driver");
+            } else if (jdbcUrl.startsWith("jdbc:mysql:") || jdbcUrl.startsWith("jdbc:mariadb:")) {
+                Class.forName("com.mysql.cj.jdbc.Driver");
+            } else if (jdbcUrl.startsWith("jdbc:sqlserver:")) {
+                Class.forName("com.microsoft.sqlserver.jdbc.SQLServerDriver");
+            } else if (jdbcUrl.startsWith("jdbc:oracle:")) {
+                Class.forName("oracle.jdbc.OracleDriver");
+            } else if (jdbcUrl.startsWith("jdbc:h2:")) {
+                Class.forName("org.h2.Driver");
+            } else if (jdbcUrl.startsWith("jdbc:sqlite:")) {
+                Class.forName("org.sqlite.JDBC");
+            } else if (jdbcUrl.startsWith("jdbc:db2:")) {
+                Class.forName("com.ibm.db2.jcc.DB2Driver");
+            } else if (jdbcUrl.startsWith("jdbc:sybase:") || jdbcUrl.startsWith("jdbc:sap:")) {
+                Class.forName("com.sybase.jdbc4.jdbc.SybDriver");
+            } else if (jdbcUrl.startsWith("jdbc:derby:")) {
+                Class.forName("org.apache.derby.jdbc.ClientDriver");
+            }
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("JDBC Driver not found for URL: " + jdbcUrl, e);
+        }
+    }
+
+    private class PooledTarget {
+        private volatile HikariDataSource dataSource;
+        private volatile long lastUsed = System.currentTimeMillis();
+        private Exception failure; // guarded by this
+
+        /**
+         * Creates the pool on first use. Creation happens under this target's lock only,
+         * so a slow or unreachable server does not block borrowers of other targets.
+         * Callers that were waiting on a failed creation get the same error rather than
+         * logging in again, so one bad password is not tried once per concurrent lookup.
+         */
+        HikariDataSource dataSource(ProfileKey key, ConnectionProfile profile) throws SQLException {
+            HikariDataSource ds = dataSource;
+            if (ds != null) return ds;
+            synchronized (this) {
+                if (failure instanceof SQLException e) throw e;
+                if (failure instanceof RuntimeException e) throw e;
+                if (dataSource == null) {
+                    try {
+                        dataSource = createDataSource(profile);
+                    } catch (SQLException | RuntimeException e) {
+                        failure = e;
+                        pools.remove(key, this); // don't cache a target we could not reach
+                        throw e;
+                    }
+                    enforcePoolLimit();
+                }
+                return dataSource;
+            }
+        }
+
+        boolean isIdle() {
+            HikariDataSource ds = dataSource;
+            return ds == null || ds.getHikariPoolMXBean() == null
+                    || ds.getHikariPoolMXBean().getActiveConnections() == 0;
+        }
+
+        void close() {
+            HikariDataSource ds = dataSource;
+            if (ds != null) ds.close();
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.maze.DB.Studio.service;
 
 import com.maze.DB.Studio.model.ConnectionProfile;
+import com.maze.DB.Studio.model.ImportOptions;
+import com.maze.DB.Studio.model.ImportResult;
+import com.maze.DB.Studio.util.CsvValueParser;
 import com.maze.DB.Studio.util.ResultSetUtil;
+import com.maze.DB.Studio.util.XlsxStreamReader;
 import com.mongodb.ConnectionString;
 import com.mongodb.MongoSecurityException;
 import com.mongodb.MongoTimeoutException;
@@ -9,45 +13,51 @@ import com.mongodb.client.*;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
 import lombok.RequiredArgsConstructor;
+import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.ss.usermodel.*;
 import org.springframework.beans.factory.annotation.Value;
 
 import org.bson.Document;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.sql.*;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static com.maze.DB.Studio.util.JdbcUrlParser.extractDatabaseName;
 
 @Service
 @RequiredArgsConstructor
 public class ConnectionService {
-    private static final int BATCH_SIZE = 500; // Configurable for relational DBs or MongoDB
+    private final ConnectionPoolManager connectionPools;
+    private final MongoClientRegistry mongoClients;
+    private final SchemaMetadataCache metadataCache;
+    private final ImportPipeline importPipeline;
+    @Value("${dbstudio.import.csv-sample-rows:200}")
+    private int csvSampleRows;
     @Value("${db.backup.folder}")
     private String backupFolder;
     // ----------------- Test Connection -----------------
     public void testConnection(ConnectionProfile profile) throws Exception {
         if (isMongo(profile)) {
-            try (MongoClient client = createMongoClient(profile)) {
-                client.listDatabaseNames().first(); // Will throw if connection fails
+            try (MongoClientRegistry.Lease lease = mongoClients.acquire(profile)) {
+                lease.client().listDatabaseNames().first(); // Will throw if connection fails
             } catch (MongoSecurityException e) {
+                mongoClients.evict(profile);
                 throw new Exception("MongoDB authentication failed. Please check your username and password.");
             } catch (MongoTimeoutException e) {
+                mongoClients.evict(profile);
                 throw new Exception("Cannot reach MongoDB server. Check the host, port, and network.");
             }
         } else {
             try {
                 Class.forName(profile.getDriverClassName());
-                try (Connection conn = DriverManager.getConnection(profile.getJdbcUrl(), profile.getUsername(), profile.getPassword())) {
+                try (Connection conn = connectionPools.getConnection(profile)) {
                     if (conn == null || conn.isClosed()) {
                         throw new Exception("Failed to establish JDBC connection.");
                     }
@@ -74,23 +84,17 @@ public class ConnectionService {
             // --- MongoDB ---
             if (profile.getMongoUri() != null && !profile.getMongoUri().isEmpty()) {
                 ConnectionString connString = new ConnectionString(profile.getMongoUri());
-                try (MongoClient client = MongoClients.create(profile.getMongoUri())) {
-                    if (connString.getDatabase() == null) {
-                        // No database specified → list all databases
-                        return listDatabases(profile);
-                    } else {
-                        // Database specified → list tables (collections)
-                        return listTables(profile, connString.getDatabase());
-                    }
+                if (connString.getDatabase() == null) {
+                    // No database specified → list all databases
+                    return listDatabases(profile);
+                } else {
+                    // Database specified → list tables (collections)
+                    return listTables(profile, connString.getDatabase());
                 }
             }
 
             // --- JDBC ---
-            Class.forName(profile.getDriverClassName());
-            try (Connection conn = DriverManager.getConnection(
-                    profile.getJdbcUrl(),
-                    profile.getUsername(),
-                    profile.getPassword())) {
+            try (Connection conn = connectionPools.getConnection(profile)) {
 
                 DatabaseMetaData metaData = conn.getMetaData();
                 String dbProduct = metaData.getDatabaseProductName().toLowerCase();
@@ -118,17 +122,19 @@ public class ConnectionService {
     }
 
     public List<String> listDatabases(ConnectionProfile profile) throws Exception {
+        return metadataCache.get(profile, "databases", null, null, () -> loadDatabases(profile));
+    }
+
+    private List<String> loadDatabases(ConnectionProfile profile) throws Exception {
         List<String> result = new ArrayList<>();
         if (isMongo(profile)) {
-            try (MongoClient client = createMongoClient(profile)) {
-                client.listDatabaseNames().forEach(result::add);
+            try (MongoClientRegistry.Lease lease = mongoClients.acquire(profile)) {
+                lease.client().listDatabaseNames().forEach(result::add);
             }
             return result;
         }
 
-        Class.forName(profile.getDriverClassName());
-        try (Connection conn = DriverManager.getConnection(
-                profile.getJdbcUrl(), profile.getUsername(), profile.getPassword())) {
+        try (Connection conn = connectionPools.getConnection(profile)) {
 
             DatabaseMetaData meta = conn.getMetaData();
             String dbProduct = meta.getDatabaseProductName().toLowerCase();
@@ -172,65 +178,67 @@ public class ConnectionService {
         return result;
     }
 
-    public List<String> listTables(ConnectionProfile profile, String databaseName) {
+    public List<String> listTables(ConnectionProfile profile, String databaseName) throws Exception {
+        return metadataCache.get(profile, "tables", databaseName, null, () -> loadTables(profile, databaseName));
+    }
+
+    private List<String> loadTables(ConnectionProfile profile, String databaseName) throws Exception {
         List<String> result = new ArrayList<>();
-        try {
-            if (isMongo(profile)) {
-                String dbName = databaseName != null ? databaseName : new ConnectionString(profile.getMongoUri()).getDatabase();
-                try (MongoClient client = createMongoClient(profile)) {
-                    if (dbName != null) client.getDatabase(dbName).listCollectionNames().forEach(result::add);
-                }
-                return result;
+        if (isMongo(profile)) {
+            String dbName = databaseName != null ? databaseName : new ConnectionString(profile.getMongoUri()).getDatabase();
+            try (MongoClientRegistry.Lease lease = mongoClients.acquire(profile)) {
+                if (dbName != null) lease.client().getDatabase(dbName).listCollectionNames().forEach(result::add);
             }
+            return result;
+        }
 
-            Class.forName(profile.getDriverClassName());
-            try (Connection conn = DriverManager.getConnection(
-                    profile.getJdbcUrl(), profile.getUsername(), profile.getPassword())) {
-
-                DatabaseMetaData meta = conn.getMetaData();
-                String dbProduct = meta.getDatabaseProductName().toLowerCase();
-                String catalog = conn.getCatalog();
-                String schema = null;
-
-                if (dbProduct.contains("oracle") || dbProduct.contains("db2")) {
-                    schema = profile.getUsername().toUpperCase();
-                } else if (dbProduct.contains("postgresql")) {
-                    schema = "public";
-                } else if (dbProduct.contains("sql server") || dbProduct.contains("jtds:sqlserver")) {
-                    schema = "dbo";
-                    // Force catalog to selected database name
-                    if (databaseName != null && !databaseName.isBlank()) {
-                        catalog = databaseName;
-                    }
-                } else if (dbProduct.contains("sqlite") || dbProduct.contains("h2") || dbProduct.contains("derby")) {
-                    schema = null;
-                    catalog = null;
-                }
+        try (Connection conn = connectionPools.getConnection(profile)) {
 
-                try (ResultSet rs = meta.getTables(catalog, schema, "%", new String[]{"TABLE", "VIEW"})) {
-                    while (rs.next()) result.add(rs.getString("TABLE_NAME"));
+            DatabaseMetaData meta = conn.getMetaData();
+            String dbProduct = meta.getDatabaseProductName().toLowerCase();
+            String catalog = conn.getCatalog();
+            String schema = null;
+
+            if (dbProduct.contains("oracle") || dbProduct.contains("db2")) {
+                schema = profile.getUsername().toUpperCase();
+            } else if (dbProduct.contains("postgresql")) {
+                schema = "public";
+            } else if (dbProduct.contains("sql server") || dbProduct.contains("jtds:sqlserver")) {
+                schema = "dbo";
+                // Force catalog to selected database name
+                if (databaseName != null && !databaseName.isBlank()) {
+                    catalog = databaseName;
                 }
+            } else if (dbProduct.contains("sqlite") || dbProduct.contains("h2") || dbProduct.contains("derby")) {
+                schema = null;
+                catalog = null;
+            }
+
+            try (ResultSet rs = meta.getTables(catalog, schema, "%", new String[]{"TABLE", "VIEW"})) {
+                while (rs.next()) result.add(rs.getString("TABLE_NAME"));
             }
-        } catch (Exception e) {
-            e.printStackTrace();
         }
         return result;
     }
 
-    public List<String> listViews(ConnectionProfile profile) {
-        return getMetaDataList(profile, "VIEW");
+    public List<String> listViews(ConnectionProfile profile) throws Exception {
+        return metadataCache.get(profile, "views", null, null, () -> getMetaDataList(profile, "VIEW"));
     }
 
-    public List<String> listStoredProcedures(ConnectionProfile profile) {
-        return getMetaDataProcedures(profile);
+    public List<String> listStoredProcedures(ConnectionProfile profile) throws Exception {
+        return metadataCache.get(profile, "procedures", null, null, () -> getMetaDataProcedures(profile));
     }
 
 
-    public List<String> listColumns(ConnectionProfile profile, String table) {
+    public List<String> listColumns(ConnectionProfile profile, String table) throws Exception {
+        return metadataCache.get(profile, "columns", profile.getDatabaseName(), table, () -> loadColumns(profile, table));
+    }
+
+    private List<String> loadColumns(ConnectionProfile profile, String table) throws Exception {
         List<String> columns = new ArrayList<>();
         if (isMongo(profile)) {
-            try (MongoClient client = createMongoClient(profile)) {
-                MongoDatabase db = client.getDatabase(profile.getDatabaseName());
+            try (MongoClientRegistry.Lease lease = mongoClients.acquire(profile)) {
+                MongoDatabase db = lease.client().getDatabase(profile.getDatabaseName());
                 MongoCollection<Document> coll = db.getCollection(table);
                 Document doc = coll.find().first();
                 if (doc != null) columns.addAll(doc.keySet());
@@ -238,138 +246,63 @@ public class ConnectionService {
             return columns;
         }
 
-        try (Connection conn = DriverManager.getConnection(profile.getJdbcUrl(), profile.getUsername(), profile.getPassword())) {
+        try (Connection conn = connectionPools.getConnection(profile)) {
             DatabaseMetaData meta = conn.getMetaData();
             try (ResultSet rs = meta.getColumns(null, null, table, "%")) {
                 while (rs.next())
                     columns.add(rs.getString("COLUMN_NAME") + " " + rs.getString("TYPE_NAME"));
             }
-        } catch (Exception e) { e.printStackTrace(); }
+        }
         return columns;
     }
 
+    /**
+     * Forgets cached metadata for the profile's target, e.g. after DDL or when the user asks to refresh.
+     */
+    public void invalidateMetadata(ConnectionProfile profile) {
+        metadataCache.invalidate(profile);
+    }
 
 
 
-    // ----------------- Execute Mongo Queries -----------------
-    public List<List<Object>> executeMongoQuery(ConnectionProfile profile, String query) {
-        List<List<Object>> results = new ArrayList<>();
-        try (MongoClient client = createMongoClient(profile)) {
-            MongoDatabase db = client.getDatabase(new ConnectionString(profile.getMongoUri()).getDatabase());
-
-            // Expected query format:
-            // collectionName                    => fetch all
-            // collectionName|{"maintainer.employeeId":"EB-1009"} => fetch with filter
-            String collectionName = query;
-            Document filter = new Document(); // empty filter by default
-
-            if (query.contains("|")) {
-                String[] parts = query.split("\\|", 2);
-                collectionName = parts[0].trim();
-                String jsonFilter = parts[1].trim();
-                if (!jsonFilter.isEmpty()) filter = Document.parse(jsonFilter);
-            }
-
-            MongoCollection<Document> collection = db.getCollection(collectionName);
-
-            for (Document doc : collection.find(filter)) {
-                List<Object> row = new ArrayList<>();
-                doc.forEach((k, v) -> row.add(k + "=" + v));
-                results.add(row);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return results;
-    }
-
 
     // ----------------- Utility -----------------
     private boolean isMongo(ConnectionProfile profile) {
         return profile.getMongoUri() != null && !profile.getMongoUri().isEmpty();
     }
 
-    private MongoClient createMongoClient(ConnectionProfile profile) {
-        ConnectionString connString = new ConnectionString(profile.getMongoUri());
-        return MongoClients.create(connString);
-    }
-
-    private List<String> getMetaDataList(ConnectionProfile profile, String type) {
+    private List<String> getMetaDataList(ConnectionProfile profile, String type) throws SQLException {
         List<String> list = new ArrayList<>();
-        try (Connection conn = DriverManager.getConnection(profile.getJdbcUrl(), profile.getUsername(), profile.getPassword())) {
+        try (Connection conn = connectionPools.getConnection(profile)) {
             DatabaseMetaData meta = conn.getMetaData();
             try (ResultSet rs = meta.getTables(null, null, "%", new String[]{type})) {
                 while (rs.next()) list.add(rs.getString("TABLE_NAME"));
             }
-        } catch (Exception e) { e.printStackTrace(); }
+        }
         return list;
     }
 
-    private List<String> getMetaDataProcedures(ConnectionProfile profile) {
+    private List<String> getMetaDataProcedures(ConnectionProfile profile) throws SQLException {
         List<String> procs = new ArrayList<>();
-        try (Connection conn = DriverManager.getConnection(profile.getJdbcUrl(), profile.getUsername(), profile.getPassword())) {
+        try (Connection conn = connectionPools.getConnection(profile)) {
             DatabaseMetaData meta = conn.getMetaData();
             try (ResultSet rs = meta.getProcedures(null, null, "%")) {
                 while (rs.next()) procs.add(rs.getString("PROCEDURE_NAME"));
             }
-        } catch (Exception e) { e.printStackTrace(); }
+        }
         return procs;
     }
     // ---------------- Mongo Backup/Restore ----------------
-    public boolean backupMongo(ConnectionProfile profile) {
-        try {
-            // Ensure backup folder exists
-            File folder = new File(backupFolder);
-            if (!folder.exists()) folder.mkdirs();
-
-            String dbName = extractMongoDatabase(profile.getJdbcUrl());
-            String backupFile = backupFolder + "/" + dbName + "_" + System.currentTimeMillis();
-
-            // Name of your MongoDB container
-            String containerName ="some-mongo"; // add this field to ConnectionProfile
-
-            // Build docker exec command
-            String command = String.format(
-                    "docker exec %s mongodump -d %s -o /data/backup",
-                    containerName,
-                    dbName
-            );
-
-            // Execute backup
-            Process process = Runtime.getRuntime().exec(command);
-            int exitCode = process.waitFor();
-
-            // Copy from container to host
-            String copyCommand = String.format(
-                    "docker cp %s:/data/backup/%s %s",
-                    containerName,
-                    dbName,
-                    backupFile
-            );
-            Process copyProcess = Runtime.getRuntime().exec(copyCommand);
-            copyProcess.waitFor();
-
-            return exitCode == 0;
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;
-        }
-    }
-
-    private String extractMongoDatabase(String mongoUri) {
-        String[] parts = mongoUri.split("/");
-        return parts[parts.length - 1].split("\\?")[0]; // remove any query params
-    }
-
-
-    public boolean restoreMongo(ConnectionProfile profile, MultipartFile file) {
+    /**
+     * Restores a mongodump dump with mongorestore; the uploaded file (already saved to disk) is
+     * moved into a temp folder of its own because mongorestore reads a whole directory.
+     */
+    public boolean restoreMongo(ConnectionProfile profile, File upload, String filename) {
         try {
-            // Save uploaded backup file to a temp folder
             File backupDir = new File("tmp/mongo_restore_" + System.currentTimeMillis());
             backupDir.mkdirs();
-            File backupFile = new File(backupDir, file.getOriginalFilename());
-            file.transferTo(backupFile);
+            File backupFile = new File(backupDir, new File(filename).getName());
+            Files.move(upload.toPath(), backupFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
 
             ProcessBuilder pb = new ProcessBuilder(
                     "mongorestore",
@@ -391,12 +324,11 @@ public class ConnectionService {
             return false;
         }
     }
-    public boolean restoreJdbc(ConnectionProfile profile, MultipartFile file) {
+    /**
+     * Restores the uploaded backup (already saved to disk); the file is deleted afterwards.
+     */
+    public boolean restoreJdbc(ConnectionProfile profile, File backupFile) {
         try {
-            // Save uploaded backup file to system temp folder
-            File tempDir = new File(System.getProperty("java.io.tmpdir"));
-            File backupFile = new File(tempDir, "jdbc_restore_" + System.currentTimeMillis() + ".sql");
-            file.transferTo(backupFile);
 
             String dbUrl = profile.getJdbcUrl();
             Process process;
@@ -437,11 +369,17 @@ public class ConnectionService {
                     "RESTORE DATABASE [" + dbName + "] FROM DISK = N'" + backupFile.getAbsolutePath() + "' WITH REPLACE; " +
                     "ALTER DATABASE [" + dbName + "] SET MULTI_USER;";
 
-            Class.forName(profile.getDriverClassName());
-            try (Connection conn = DriverManager.getConnection(masterDbUrl, profile.getUsername(), profile.getPassword());
+            ConnectionProfile masterProfile = new ConnectionProfile();
+            masterProfile.setDriverClassName(profile.getDriverClassName());
+            masterProfile.setJdbcUrl(masterDbUrl);
+            masterProfile.setUsername(profile.getUsername());
+            masterProfile.setPassword(profile.getPassword());
+            try (Connection conn = connectionPools.getConnection(masterProfile);
                  Statement stmt = conn.createStatement()) {
                 stmt.execute(sql);
             }
+            // Connections to the restored database were killed by SINGLE_USER; start with a fresh pool
+            connectionPools.evict(profile);
             backupFile.delete();
             return true;
         }
@@ -463,7 +401,13 @@ public class ConnectionService {
 
 
     // ---------------- JDBC Backup/Restore ----------------
-    public boolean backupJdbc(ConnectionProfile profile) {
+
+    /**
+     * Runs the database's own backup tool. Returns the backup file, or null when the backup
+     * failed. SQL Server writes the file on the database server, so it may not exist locally;
+     * that backup is taken WITH CHECKSUM and verified there with RESTORE VERIFYONLY instead.
+     */
+    public File backupJdbc(ConnectionProfile profile) {
         try {
             // Ensure backup folder exists
             File folder = new File(backupFolder);
@@ -474,11 +418,12 @@ public class ConnectionService {
             String backupFile = backupFolder + "/" + extractDatabase(dbUrl) + "_" + System.currentTimeMillis() + ".bak";
 
             if (dbUrl.toLowerCase().contains("sqlserver")) {
-                String sql = "BACKUP DATABASE [" + dbName + "] TO DISK = N'" + backupFile + "' WITH INIT";
-                Class.forName(profile.getDriverClassName());
-                try (Connection conn = DriverManager.getConnection(dbUrl, profile.getUsername(), profile.getPassword());
+                String sql = "BACKUP DATABASE [" + dbName + "] TO DISK = N'" + backupFile + "' WITH INIT, CHECKSUM";
+                try (Connection conn = connectionPools.getConnection(profile);
                      Statement stmt = conn.createStatement()) {
                     stmt.execute(sql);
+                    // Fails with an error if the backup set is unreadable or a page checksum does not match
+                    stmt.execute("RESTORE VERIFYONLY FROM DISK = N'" + backupFile + "' WITH CHECKSUM");
                 }
             }
             else if (dbUrl.toLowerCase().contains("mysql")) {
@@ -491,8 +436,7 @@ public class ConnectionService {
                         backupFile
                 );
                 Process process = Runtime.getRuntime().exec(command);
-                int exitCode = process.waitFor();
-                return exitCode == 0;
+                if (process.waitFor() != 0) return null;
 
             } else if (dbUrl.toLowerCase().contains("postgresql")) {
                 // Use pg_dump
@@ -503,18 +447,17 @@ public class ConnectionService {
                         backupFile
                 );
                 Process process = Runtime.getRuntime().exec(command);
-                int exitCode = process.waitFor();
-                return exitCode == 0;
+                if (process.waitFor() != 0) return null;
 
             } else {
                 throw new UnsupportedOperationException("JDBC Backup not supported for this DB");
             }
 
-            return true;
+            return new File(backupFile);
 
         } catch (Exception e) {
             e.printStackTrace();
-            return false;
+            return null;
         }
     }
 
@@ -586,46 +529,53 @@ public class ConnectionService {
         return "Connection failed. Please verify your details and try again.";
     }
     public Connection getConnection(ConnectionProfile profile) throws SQLException {
-        String jdbcUrl = profile.getJdbcUrl();
-        String username = profile.getUsername();
-        String password = profile.getPassword();
-
-        try {
-            // Detect driver class based on JDBC URL
-            if (jdbcUrl.startsWith("jdbc:postgresql:")) {
-                Class.forName("org.postgresql.Driver");
-            } else if (jdbcUrl.startsWith("jdbc:mysql:") || jdbcUrl.startsWith("jdbc:mariadb:")) {
-                Class.forName("com.mysql.cj.jdbc.Driver");
-            } else if (jdbcUrl.startsWith("jdbc:sqlserver:")) {
-                Class.forName("com.microsoft.sqlserver.jdbc.SQLServerDriver");
-            } else if (jdbcUrl.startsWith("jdbc:oracle:")) {
-                Class.forName("oracle.jdbc.OracleDriver");
-            } else if (jdbcUrl.startsWith("jdbc:h2:")) {
-                Class.forName("org.h2.Driver");
-            } else if (jdbcUrl.startsWith("jdbc:sqlite:")) {
-                Class.forName("org.sqlite.JDBC");
-            } else if (jdbcUrl.startsWith("jdbc:db2:")) {
-                Class.forName("com.ibm.db2.jcc.DB2Driver");
-            } else if (jdbcUrl.startsWith("jdbc:sybase:") || jdbcUrl.startsWith("jdbc:sap:")) {
-                Class.forName("com.sybase.jdbc4.jdbc.SybDriver");
-            } else if (jdbcUrl.startsWith("jdbc:derby:")) {
-                Class.forName("org.apache.derby.jdbc.ClientDriver");
-            }
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("JDBC Driver not found for URL: " + jdbcUrl, e);
+        return connectionPools.getConnection(profile);
+    }
+    // ... imports and class definition unchanged ...
+    /**
+     * Imports the first sheet of an Excel file. The file must be complete on disk: the event
+     * reader needs random access to the zip entries.
+     */
+    public ImportResult importExcelToTable(ConnectionProfile profile, String table, File file, ImportOptions options,
+                                           JobProgress progress) throws Exception {
+        if (FileMagic.valueOf(file) == FileMagic.OOXML) {
+            return importXlsxStreaming(profile, table, file, options, progress);
+        } else {
+            return importExcelWorkbook(profile, table, file, options, progress); // legacy .xls
         }
+    }
 
-        // SQLite usually has no username/password
-        if (jdbcUrl.startsWith("jdbc:sqlite:")) {
-            return DriverManager.getConnection(jdbcUrl);
+    /**
+     * Streams .xlsx rows through a SAX parser into the import pipeline; only the queued batches
+     * (and the shared strings table) are held in memory.
+     */
+    private ImportResult importXlsxStreaming(ConnectionProfile profile, String table, File file, ImportOptions options,
+                                             JobProgress progress) throws Exception {
+        List<String> columns = new ArrayList<>();
+        ImportPipeline.Writer[] writer = new ImportPipeline.Writer[1];
+        try {
+            XlsxStreamReader.read(file, (rowNumber, values) -> {
+                if (writer[0] == null) {
+                    // First row is the header
+                    for (Object value : values) columns.add(value == null ? "" : value.toString().trim());
+                    writer[0] = importPipeline.open(profile, table, columns, options, progress);
+                    return;
+                }
+                List<Object> rowData = new ArrayList<>(columns.size());
+                for (int i = 0; i < columns.size(); i++) rowData.add(i < values.size() ? values.get(i) : null);
+                writer[0].add(rowNumber, rowData);
+            });
+
+            if (writer[0] == null) throw new IllegalArgumentException("Excel sheet is empty");
+            return writer[0].finish();
+        } finally {
+            if (writer[0] != null) writer[0].close();
         }
-
-        // Normal case: username + password
-        return DriverManager.getConnection(jdbcUrl, username, password);
     }
-    // ... imports and class definition unchanged ...
-    public void importExcelToTable(ConnectionProfile profile, String table, InputStream inputStream) throws Exception {
-        try (Workbook workbook = WorkbookFactory.create(inputStream)) { // Auto-detect XLS/XLSX
+
+    private ImportResult importExcelWorkbook(ConnectionProfile profile, String table, File file, ImportOptions options,
+                                             JobProgress progress) throws Exception {
+        try (Workbook workbook = WorkbookFactory.create(file, null, true)) {
             Sheet sheet = workbook.getSheetAt(0);
             Iterator<Row> rowIterator = sheet.iterator();
 
@@ -637,50 +587,53 @@ public class ConnectionService {
             for (Cell cell : headerRow) columns.add(cell.getStringCellValue().trim());
 
             // Read data rows
-            List<List<Object>> batchRows = new ArrayList<>();
-            while (rowIterator.hasNext()) {
-                Row row = rowIterator.next();
-                List<Object> rowData = new ArrayList<>();
-                for (int i = 0; i < columns.size(); i++) {
-                    Cell cell = row.getCell(i, Row.MissingCellPolicy.CREATE_NULL_AS_BLANK);
-                    rowData.add(getCellValue(cell));
-                }
-                batchRows.add(rowData);
-
-                if (batchRows.size() >= BATCH_SIZE) {
-                    bulkInsert(profile, table, columns, batchRows);
-                    batchRows.clear();
+            try (ImportPipeline.Writer writer = importPipeline.open(profile, table, columns, options, progress)) {
+                while (rowIterator.hasNext()) {
+                    Row row = rowIterator.next();
+                    List<Object> rowData = new ArrayList<>();
+                    for (int i = 0; i < columns.size(); i++) {
+                        Cell cell = row.getCell(i, Row.MissingCellPolicy.CREATE_NULL_AS_BLANK);
+                        rowData.add(getCellValue(cell));
+                    }
+                    writer.add(row.getRowNum() + 1, rowData);
                 }
+                return writer.finish();
             }
-            if (!batchRows.isEmpty()) bulkInsert(profile, table, columns, batchRows);
         }
     }
 
-    public void importCsvToTable(ConnectionProfile profile, String table, InputStream inputStream) throws Exception {
+    /**
+     * Imports a CSV file whose first record is the header.
+     * Cell types come from the target columns, or for MongoDB from the first rows of the file.
+     */
+    public ImportResult importCsvToTable(ConnectionProfile profile, String table, InputStream inputStream, ImportOptions options,
+                                         JobProgress progress) throws Exception {
         try (CSVReader reader = new CSVReaderBuilder(new InputStreamReader(inputStream, StandardCharsets.UTF_8)).build()) {
-            List<String> columns = new ArrayList<>();
-            List<List<Object>> batchRows = new ArrayList<>();
-            String[] line;
-            boolean headerRead = false;
-
-            while ((line = reader.readNext()) != null) {
-                if (!headerRead) {
-                    columns.addAll(Arrays.asList(line));
-                    headerRead = true;
+            String[] line = reader.readNext();
+            if (line == null) throw new IllegalArgumentException("CSV file is empty");
+            List<String> columns = Arrays.asList(line);
+
+            try (ImportPipeline.Writer writer = importPipeline.open(profile, table, columns, options, progress)) {
+                List<String[]> sample = new ArrayList<>();
+                CsvValueParser parser;
+                if (writer.getPlan() != null) {
+                    int[] jdbcTypes = new int[columns.size()];
+                    for (int i = 0; i < jdbcTypes.length; i++) jdbcTypes[i] = writer.getPlan().getJdbcType(i);
+                    parser = CsvValueParser.fromJdbcTypes(jdbcTypes);
                 } else {
-                    List<Object> rowData = Arrays.stream(line)
-                            .map(String::trim)
-                            .map(this::parseValue)
-                            .collect(Collectors.toList());
-                    batchRows.add(rowData);
-
-                    if (batchRows.size() >= BATCH_SIZE) {
-                        bulkInsert(profile, table, columns, batchRows);
-                        batchRows.clear();
-                    }
+                    while (sample.size() < csvSampleRows && (line = reader.readNext()) != null) sample.add(line);
+                    parser = CsvValueParser.inferFrom(sample, columns.size());
                 }
+
+                int rowNumber = 1;
+                Iterator<String[]> sampled = sample.iterator();
+                while ((line = sampled.hasNext() ? sampled.next() : reader.readNext()) != null) {
+                    List<Object> rowData = new ArrayList<>(line.length);
+                    for (int i = 0; i < line.length; i++) rowData.add(parser.parse(i, line[i]));
+                    writer.add(++rowNumber, rowData);
+                }
+                return writer.finish();
             }
-            if (!batchRows.isEmpty()) bulkInsert(profile, table, columns, batchRows);
         }
     }
 
@@ -698,7 +651,15 @@ public class ConnectionService {
                 }
                 return cell.getNumericCellValue();
             case FORMULA:
-                return cell.getCellFormula();
+                // Import the cached result, as the streaming .xlsx reader does
+                return switch (cell.getCachedFormulaResultType()) {
+                    case NUMERIC -> DateUtil.isCellDateFormatted(cell)
+                            ? new Timestamp(cell.getDateCellValue().getTime())
+                            : cell.getNumericCellValue();
+                    case STRING -> cell.getStringCellValue().trim();
+                    case BOOLEAN -> cell.getBooleanCellValue();
+                    default -> null;
+                };
             case BLANK:
             default:
                 return null;
@@ -706,121 +667,6 @@ public class ConnectionService {
     }
 
 
-    private Object parseValue(String value) {
-        if (value == null || value.isBlank()) return null;
-        try { return Integer.parseInt(value); } catch (NumberFormatException ignored) {}
-        try { return Double.parseDouble(value); } catch (NumberFormatException ignored) {}
-        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) return Boolean.parseBoolean(value);
-        return value;
-    }
-
-    private void bulkInsert(ConnectionProfile profile, String table, List<String> columns, List<List<Object>> rows) throws Exception {
-        if (rows.isEmpty()) return;
-
-        if (isMongo(profile)) {
-            insertMongo(profile, table, columns, rows);
-        } else {
-            insertRelational(profile, table, columns, rows);
-        }
-    }
-
-    private void insertMongo(ConnectionProfile profile, String table, List<String> columns, List<List<Object>> rows) {
-        try (MongoClient client = createMongoClient(profile)) {
-            MongoCollection<Document> collection = client.getDatabase(profile.getDatabaseName()).getCollection(table);
-            List<Document> docs = new ArrayList<>();
-            for (List<Object> row : rows) {
-                Document doc = new Document();
-                for (int i = 0; i < columns.size(); i++) doc.put(columns.get(i), i < row.size() ? row.get(i) : null);
-                docs.add(doc);
-            }
-            if (!docs.isEmpty()) collection.insertMany(docs);
-        }
-    }
-
-    private void insertRelational(ConnectionProfile profile, String table, List<String> columns, List<List<Object>> rows) throws SQLException {
-        try (Connection conn = getConnection(profile)) {
-            String dbProduct = conn.getMetaData().getDatabaseProductName().toLowerCase();
-            String colList = columns.stream()
-                    .map(c -> quoteColumn(c, dbProduct))
-                    .collect(Collectors.joining(","));
-            String qMarks = String.join(",", Collections.nCopies(columns.size(), "?"));
-            String sql = "INSERT INTO " + table + " (" + colList + ") VALUES (" + qMarks + ")";
-
-            Map<String, Integer> columnTypes = getColumnTypes(conn, table);
-
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                for (int rowIndex = 0; rowIndex < rows.size(); rowIndex++) {
-                    List<Object> row = rows.get(rowIndex);
-                    for (int i = 0; i < columns.size(); i++) {
-                        Object val = i < row.size() ? row.get(i) : null;
-                        String colName = columns.get(i);
-                        Integer sqlType = columnTypes.get(colName.toLowerCase());
-
-                        try {
-                            if (val != null && (sqlType == Types.TIMESTAMP || sqlType == Types.TIMESTAMP_WITH_TIMEZONE)) {
-                                if (!(val instanceof Timestamp)) {
-                                    val = parseTimestamp(val.toString());
-                                }
-                                ps.setTimestamp(i + 1, (Timestamp) val);
-                            } else {
-                                ps.setObject(i + 1, val);
-                            }
-                        } catch (Exception e) {
-                            throw new SQLException("Error at row " + (rowIndex + 2) + ", column '" + colName + "' with value '" + val + "': " + e.getMessage(), e);
-                        }
-                    }
-                    ps.addBatch();
-                }
-                ps.executeBatch();
-            }
-        }
-    }
-
-
-    private Timestamp parseTimestamp(Object value) {
-        if (value == null) return null;
-
-        String str = value.toString().trim();
-        if (str.isEmpty() || str.equalsIgnoreCase("NULL")) return null; // <-- handle NULL
-
-        try {
-            // Handles milliseconds
-            LocalDateTime ldt = LocalDateTime.parse(str, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS"));
-            return Timestamp.valueOf(ldt);
-        } catch (Exception e1) {
-            try {
-                // Fallback: seconds only
-                LocalDateTime ldt = LocalDateTime.parse(str, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-                return Timestamp.valueOf(ldt);
-            } catch (Exception e2) {
-                throw new IllegalArgumentException("Invalid timestamp: " + value, e2);
-            }
-        }
-    }
-
-    // Utility to fetch column types from DB
-    private Map<String, Integer> getColumnTypes(Connection conn, String table) throws SQLException {
-        Map<String, Integer> map = new HashMap<>();
-        DatabaseMetaData meta = conn.getMetaData();
-        try (ResultSet rs = meta.getColumns(null, null, table, null)) {
-            while (rs.next()) {
-                String colName = rs.getString("COLUMN_NAME").toLowerCase();
-                int sqlType = rs.getInt("DATA_TYPE"); // java.sql.Types
-                map.put(colName, sqlType);
-            }
-        }
-        return map;
-    }
-
-    private String quoteColumn(String column, String dbProduct) {
-        if (dbProduct.contains("sql server")) return "[" + column + "]";
-        if (dbProduct.contains("mysql") || dbProduct.contains("mariadb")) return "`" + column + "`";
-        if (dbProduct.contains("postgresql")) return "\"" + column + "\"";
-        return column;
-    }
-
-
-
     public static String addPagination(String jdbcUrl, String sql, int page, int size) {
         int offset = (page - 1) * size;
         String lowerSql = sql.trim().toLowerCase();
@@ -839,34 +685,4 @@ public class ConnectionService {
         }
         return sql;
     }
-
-    // Mongo paginated
-    public List<List<Object>> executeMongoQueryPaginated(ConnectionProfile profile, String query, int page, int size) {
-        List<List<Object>> results = new ArrayList<>();
-        try (MongoClient client = createMongoClient(profile)) {
-            MongoDatabase db = client.getDatabase(new ConnectionString(profile.getMongoUri()).getDatabase());
-
-            String collectionName = query;
-            Document filter = new Document();
-
-            if (query.contains("|")) {
-                String[] parts = query.split("\\|", 2);
-                collectionName = parts[0].trim();
-                String jsonFilter = parts[1].trim();
-                if (!jsonFilter.isEmpty()) filter = Document.parse(jsonFilter);
-            }
-
-            MongoCollection<Document> collection = db.getCollection(collectionName);
-
-            int offset = (page - 1) * size;
-            for (Document doc : collection.find(filter).skip(offset).limit(size)) {
-                List<Object> row = new ArrayList<>();
-                doc.forEach((k, v) -> row.add(k + "=" + v));
-                results.add(row);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return results;
-    }
 }
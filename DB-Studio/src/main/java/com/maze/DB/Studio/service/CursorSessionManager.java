@@ -0,0 +1,238 @@
+package com.maze.DB.Studio.service;
+
+import com.maze.DB.Studio.model.ConnectionProfile;
+import com.maze.DB.Studio.model.ProfileKey;
+import com.maze.DB.Studio.util.JdbcStreaming;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps SELECT results open as forward-only server cursors so that paging through a query
+ * reads each row once instead of re-running an OFFSET query per page. Every session owns a
+ * dedicated pooled connection, buffers the rows it has already served, and is closed after
+ * an idle timeout or when its owner opens more cursors than allowed. Only a few cursors may be
+ * open per database at once, so they cannot take the connections that queries and jobs need.
+ */
+@Component
+@RequiredArgsConstructor
+public class CursorSessionManager {
+
+    private final ConnectionPoolManager connectionPools;
+
+    @Value("${dbstudio.cursor.fetch-size:500}")
+    private int fetchSize;
+    @Value("${dbstudio.cursor.idle-timeout-ms:300000}")
+    private long idleTimeoutMs;
+    @Value("${dbstudio.cursor.max-per-user:3}")
+    private int maxPerUser;
+    @Value("${dbstudio.cursor.max-per-target:2}")
+    private int maxPerTarget;
+    @Value("${dbstudio.cursor.max-buffered-rows:10000}")
+    private int maxBufferedRows;
+
+    private final Map<String, CursorSession> sessions = new ConcurrentHashMap<>();
+    // Open cursors per target, guarded by itself
+    private final Map<ProfileKey, Integer> openPerTarget = new HashMap<>();
+
+    /**
+     * Returns the owner's open session for this SQL on the profile's database, or null when it
+     * expired, was closed, or belongs to a different query or database.
+     */
+    public CursorSession find(String owner, String cursorId, ConnectionProfile profile, String sql) {
+        if (cursorId == null || cursorId.isBlank()) return null;
+        CursorSession session = sessions.get(cursorId);
+        if (session == null || !session.owner.equals(owner) || !session.sql.equals(sql)
+                || !session.target.equals(ProfileKey.of(profile))) return null;
+        return session;
+    }
+
+    /**
+     * Opens a new cursor for the query, closing the owner's least recently used
+     * cursors first if the per-user limit would be exceeded. Returns null when the database
+     * already has {@code max-per-target} cursors open, for the caller to page without one.
+     */
+    public CursorSession open(String owner, ConnectionProfile profile, String sql) throws SQLException {
+        List<CursorSession> owned = sessions.values().stream()
+                .filter(s -> s.owner.equals(owner))
+                .sorted(Comparator.comparingLong(s -> s.lastAccess))
+                .toList();
+        for (int i = 0; i <= owned.size() - maxPerUser; i++) close(owned.get(i).id);
+
+        ProfileKey target = ProfileKey.of(profile);
+        if (!reserve(target)) return null;
+        Connection conn = null;
+        try {
+            conn = connectionPools.getConnection(profile);
+            conn.setReadOnly(true);
+            Statement stmt = JdbcStreaming.createStreamingStatement(conn, fetchSize);
+            ResultSet rs = stmt.executeQuery(sql);
+            CursorSession session = new CursorSession(UUID.randomUUID().toString(), owner, target, sql, conn, stmt, rs);
+            sessions.put(session.id, session);
+            return session;
+        } catch (SQLException | RuntimeException e) {
+            if (conn != null) conn.close();
+            release(target);
+            throw e;
+        }
+    }
+
+    public void close(String cursorId) {
+        CursorSession session = sessions.remove(cursorId);
+        if (session != null) {
+            session.close();
+            release(session.target);
+        }
+    }
+
+    /**
+     * Closes the owner's cursor, e.g. before the query is run again from scratch.
+     */
+    public void close(String owner, String cursorId) {
+        CursorSession session = cursorId == null ? null : sessions.get(cursorId);
+        if (session != null && session.owner.equals(owner)) close(cursorId);
+    }
+
+    private boolean reserve(ProfileKey target) {
+        synchronized (openPerTarget) {
+            int open = openPerTarget.getOrDefault(target, 0);
+            if (open >= maxPerTarget) return false;
+            openPerTarget.put(target, open + 1);
+            return true;
+        }
+    }
+
+    private void release(ProfileKey target) {
+        synchronized (openPerTarget) {
+            openPerTarget.merge(target, -1, Integer::sum);
+            openPerTarget.remove(target, 0);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${dbstudio.cursor.sweep-interval-ms:30000}")
+    public void closeIdleSessions() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMs;
+        sessions.values().stream()
+                .filter(s -> s.lastAccess < cutoff)
+                .map(s -> s.id)
+                .toList()
+                .forEach(this::close);
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        new ArrayList<>(sessions.keySet()).forEach(this::close);
+    }
+
+    public class CursorSession {
+        private final String id;
+        private final String owner;
+        private final ProfileKey target;
+        private final String sql;
+        private final Connection conn;
+        private final Statement stmt;
+        private final ResultSet rs;
+        private final List<Object> headers = new ArrayList<>();
+        private final ArrayList<List<Object>> buffer = new ArrayList<>();
+        private final int columnCount;
+        private long firstBufferedRow; // absolute index of buffer.get(0)
+        private boolean exhausted;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private CursorSession(String id, String owner, ProfileKey target, String sql, Connection conn, Statement stmt,
+                              ResultSet rs) throws SQLException {
+            this.id = id;
+            this.owner = owner;
+            this.target = target;
+            this.sql = sql;
+            this.conn = conn;
+            this.stmt = stmt;
+            this.rs = rs;
+            ResultSetMetaData meta = rs.getMetaData();
+            this.columnCount = meta.getColumnCount();
+            for (int i = 1; i <= columnCount; i++) headers.add(meta.getColumnLabel(i));
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public List<Object> getHeaders() {
+            return headers;
+        }
+
+        /**
+         * Returns the rows of the requested page (1-based), reading ahead from the cursor as
+         * needed, or null when the page has already been dropped from the buffer.
+         * One extra row is read so {@link #isLastPage} can be answered without another fetch.
+         */
+        public synchronized List<List<Object>> page(int page, int size) throws SQLException {
+            lastAccess = System.currentTimeMillis();
+            long from = (long) (page - 1) * size;
+            if (from < firstBufferedRow) return null;
+
+            long needed = from + size + 1;
+            while (!exhausted && firstBufferedRow + buffer.size() < needed) {
+                if (!rs.next()) {
+                    exhausted = true;
+                    break;
+                }
+                List<Object> row = new ArrayList<>(columnCount);
+                for (int i = 1; i <= columnCount; i++) row.add(rs.getObject(i));
+                buffer.add(row);
+            }
+            trimBuffer(from);
+
+            int start = (int) (from - firstBufferedRow);
+            int end = (int) Math.min(buffer.size(), start + (long) size);
+            return start >= end ? new ArrayList<>() : new ArrayList<>(buffer.subList(start, end));
+        }
+
+        public synchronized boolean isLastPage(int page, int size) {
+            long nextPageStart = (long) page * size;
+            return exhausted && firstBufferedRow + buffer.size() <= nextPageStart;
+        }
+
+        /**
+         * Drops the oldest rows once the buffer exceeds its cap, never dropping the page
+         * being served. Pages before the buffer fall back to a regular OFFSET query.
+         */
+        private void trimBuffer(long keepFrom) {
+            int overflow = buffer.size() - maxBufferedRows;
+            if (overflow <= 0) return;
+            int drop = (int) Math.min(overflow, keepFrom - firstBufferedRow);
+            if (drop <= 0) return;
+            buffer.subList(0, drop).clear();
+            firstBufferedRow += drop;
+        }
+
+        private synchronized void close() {
+            try {
+                // Connector/J drains the rest of a streaming result on close; abort instead
+                if (!exhausted && JdbcStreaming.isMySqlDriver(conn)) {
+                    conn.abort(Runnable::run);
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            try {
+                rs.close();
+                stmt.close();
+                if (!conn.getAutoCommit()) conn.rollback();
+            } catch (SQLException ignored) {
+                // connection is going back to the pool (or was aborted) either way
+            }
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
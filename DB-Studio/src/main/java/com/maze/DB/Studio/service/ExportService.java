@@ -0,0 +1,157 @@
+package com.maze.DB.Studio.service;
+
+import com.maze.DB.Studio.model.ConnectionProfile;
+import com.maze.DB.Studio.util.CountingOutputStream;
+import com.maze.DB.Studio.util.CsvExporter;
+import com.maze.DB.Studio.util.ExcelStreamWriter;
+import com.maze.DB.Studio.util.JdbcStreaming;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Streams query results straight from a forward-only cursor to an output stream, so the
+ * memory used by an export does not grow with the number of rows. An export that stops
+ * early abandons its cursor rather than reading the remaining rows on close.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+
+    private final ConnectionPoolManager connectionPools;
+    private final MongoQueryService mongoQueries;
+
+    @Value("${dbstudio.export.fetch-size:1000}")
+    private int fetchSize;
+    @Value("${dbstudio.export.excel-row-window:100}")
+    private int excelRowWindow;
+    @Value("${dbstudio.export.excel-width-sample-rows:200}")
+    private int excelWidthSampleRows;
+
+    public void writeCsv(ConnectionProfile profile, String sql, OutputStream out) throws Exception {
+        writeCsv(profile, sql, out, JobProgress.NONE);
+    }
+
+    public void writeCsv(ConnectionProfile profile, String sql, OutputStream out, JobProgress progress) throws Exception {
+        try (Connection conn = connectionPools.getConnection(profile);
+             Statement stmt = JdbcStreaming.createStreamingStatement(conn, fetchSize);
+             ResultSet rs = stmt.executeQuery(sql)) {
+            try {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+                CsvExporter.writeResultSetToCsv(rs, writer, progress::addRows);
+            } catch (IOException | RuntimeException e) {
+                JdbcStreaming.abandon(conn); // client disconnected or job cancelled mid-stream
+                throw e;
+            }
+        }
+    }
+
+    public void writeExcel(ConnectionProfile profile, String sql, OutputStream out) throws Exception {
+        writeExcel(profile, sql, out, JobProgress.NONE);
+    }
+
+    public void writeExcel(ConnectionProfile profile, String sql, OutputStream out, JobProgress progress) throws Exception {
+        try (Connection conn = connectionPools.getConnection(profile);
+             Statement stmt = JdbcStreaming.createStreamingStatement(conn, fetchSize);
+             ResultSet rs = stmt.executeQuery(sql);
+             ExcelStreamWriter excel = newExcelWriter()) {
+            try {
+                excel.writeResultSet(rs, progress::addRows);
+                excel.finish(out);
+            } catch (IOException | RuntimeException e) {
+                JdbcStreaming.abandon(conn); // client disconnected or job cancelled mid-stream
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Writes the query result to a file, for background export jobs. Bytes are counted as they
+     * reach the file; a failed export leaves no partial file behind.
+     */
+    public void exportToFile(ConnectionProfile profile, String sql, boolean excel, Path file, JobProgress progress) throws Exception {
+        boolean mongo = profile.getMongoUri() != null && !profile.getMongoUri().isEmpty();
+        try (OutputStream out = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024), progress::addBytes)) {
+            if (mongo && excel) writeMongoExcel(profile, sql, out, progress);
+            else if (mongo) writeMongoCsv(profile, sql, out, progress);
+            else if (excel) writeExcel(profile, sql, out, progress);
+            else writeCsv(profile, sql, out, progress);
+        } catch (Exception e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes already-fetched rows (first row is the header), e.g. the output of a non-SELECT statement.
+     */
+    public void writeExcel(List<List<Object>> rows, OutputStream out) throws IOException {
+        try (ExcelStreamWriter excel = newExcelWriter()) {
+            for (int i = 0; i < rows.size(); i++) {
+                if (i == 0) excel.writeHeader(rows.get(0));
+                else excel.writeRow(rows.get(i));
+            }
+            excel.finish(out);
+        }
+    }
+
+    // ---- MongoDB ----
+
+    /**
+     * Streams a Mongo query ({@code collection|filter|projection|sort|limit}) as CSV, one cursor
+     * batch at a time.
+     */
+    public void writeMongoCsv(ConnectionProfile profile, String query, OutputStream out, JobProgress progress) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        mongoQueries.stream(profile, query, new MongoQueryService.RowSink() {
+            @Override
+            public void header(List<String> columns) throws IOException {
+                CsvExporter.writeRecord(writer, columns);
+            }
+
+            @Override
+            public void row(List<Object> values) throws IOException {
+                CsvExporter.writeRecord(writer, values);
+            }
+        }, progress);
+        writer.flush();
+    }
+
+    public void writeMongoExcel(ConnectionProfile profile, String query, OutputStream out, JobProgress progress) throws IOException {
+        try (ExcelStreamWriter excel = newExcelWriter()) {
+            mongoQueries.stream(profile, query, new MongoQueryService.RowSink() {
+                @Override
+                public void header(List<String> columns) {
+                    excel.writeHeader(columns);
+                }
+
+                @Override
+                public void row(List<Object> values) {
+                    excel.writeRow(values);
+                }
+            }, progress);
+            excel.finish(out);
+        }
+    }
+
+    private ExcelStreamWriter newExcelWriter() {
+        return new ExcelStreamWriter("Query Results", excelRowWindow, excelWidthSampleRows);
+    }
+
+    /**
+     * Exports only make sense for statements that return rows.
+     */
+    public static boolean isExportableQuery(String sql) {
+        String upper = sql == null ? "" : sql.trim().toUpperCase();
+        return upper.startsWith("SELECT") || upper.startsWith("WITH");
+    }
+}
@@ -0,0 +1,71 @@
+package com.maze.DB.Studio.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Keeps the progress of resumable imports as small JSON files, one per import key, so an
+ * interrupted import can continue after the last committed row even after a restart.
+ */
+@Component
+@RequiredArgsConstructor
+public class ImportCheckpointStore {
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${dbstudio.import.checkpoint-dir:./exports/checkpoints}")
+    private String checkpointDir;
+
+    /**
+     * @param committedRow   every source row up to and including this one has been committed
+     * @param committedAfter row ranges after {@code committedRow} that were committed too (parallel
+     *                       writers commit out of order), sorted by row
+     * @param stagingTable   staging table holding the committed rows, or null when loading directly
+     */
+    public record Checkpoint(String table, String key, int committedRow, List<RowRange> committedAfter,
+                             String stagingTable, long updatedAt) {
+    }
+
+    public record RowRange(int from, int to) {
+    }
+
+    public Checkpoint load(String key) {
+        Path file = fileFor(key);
+        if (!Files.exists(file)) return null;
+        try {
+            return objectMapper.readValue(file.toFile(), Checkpoint.class);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    public void save(String key, Checkpoint checkpoint) throws IOException {
+        Path file = fileFor(key);
+        Files.createDirectories(file.getParent());
+        // Write then rename, so a crash never leaves a half-written checkpoint behind
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        objectMapper.writeValue(tmp.toFile(), checkpoint);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public void delete(String key) {
+        try {
+            Files.deleteIfExists(fileFor(key));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private Path fileFor(String key) {
+        return Path.of(checkpointDir, key + ".json");
+    }
+}
@@ -0,0 +1,681 @@
+package com.maze.DB.Studio.service;
+
+import com.maze.DB.Studio.model.ConnectionProfile;
+import com.maze.DB.Studio.model.ImportOptions;
+import com.maze.DB.Studio.model.ImportResult;
+import com.maze.DB.Studio.model.ProfileKey;
+import com.maze.DB.Studio.service.ImportCheckpointStore.RowRange;
+import com.maze.DB.Studio.util.CsvExporter;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Overlaps file parsing with database writes: the parser hands rows to a {@link Writer}, which
+ * groups them into batches on a bounded queue, and several worker threads drain the queue, each
+ * with its own pooled connection and a {@link BulkLoaders.Loader} for the target database.
+ * The first failing row stops the import and is reported with its row number.
+ * <p>
+ * Resumable imports commit every few batches and record the last row below which everything is
+ * committed; staged imports load into a staging table that is copied into the target in a single
+ * transaction at the end.
+ * <p>
+ * With quarantine enabled, a batch the database refuses is rolled back and split in halves until
+ * the offending rows are isolated; those rows go to a reject CSV under {@code dbstudio.exports.dir}
+ * and every other row is still loaded in full batches.
+ */
+@Component
+@RequiredArgsConstructor
+public class ImportPipeline {
+
+    private final ConnectionPoolManager connectionPools;
+    private final MongoClientRegistry mongoClients;
+    private final ImportCheckpointStore checkpoints;
+
+    @Value("${dbstudio.import.batch-size:500}")
+    private int batchSize;
+    @Value("${dbstudio.import.parallelism:4}")
+    private int parallelism;
+    @Value("${dbstudio.import.queue-capacity:8}")
+    private int queueCapacity;
+    @Value("${dbstudio.import.native-bulk-load:true}")
+    private boolean nativeBulkLoad;
+    @Value("${dbstudio.import.commit-every-batches:20}")
+    private int commitEveryBatches;
+    @Value("${dbstudio.import.max-rejected-rows:10000}")
+    private long maxRejectedRows;
+    @Value("${dbstudio.import.cancel-timeout-ms:30000}")
+    private long cancelTimeoutMs;
+    @Value("${dbstudio.exports.dir:./exports}")
+    private String exportsDir;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * A batch of parsed rows together with their row numbers in the source file. Batches are
+     * numbered in the order they were read so committed progress can be tracked.
+     */
+    record Batch(int seq, int[] rowNumbers, List<List<Object>> rows) {
+        int lastRow() {
+            return rowNumbers[rowNumbers.length - 1];
+        }
+
+        Batch slice(int from, int to) {
+            return new Batch(seq, Arrays.copyOfRange(rowNumbers, from, to), rows.subList(from, to));
+        }
+    }
+
+    private static final Batch END = new Batch(-1, new int[0], List.of());
+
+    public Writer open(ConnectionProfile profile, String table, List<String> columns) throws Exception {
+        return open(profile, table, columns, ImportOptions.defaults(null, 0));
+    }
+
+    /**
+     * Starts the writer workers for one import. Rows are added with {@link Writer#add} and the
+     * import completes with {@link Writer#finish}; closing an unfinished writer cancels it.
+     */
+    public Writer open(ConnectionProfile profile, String table, List<String> columns, ImportOptions options) throws Exception {
+        return open(profile, table, columns, options, JobProgress.NONE);
+    }
+
+    /**
+     * As {@link #open(ConnectionProfile, String, List, ImportOptions)}, reporting rows as they are written.
+     */
+    public Writer open(ConnectionProfile profile, String table, List<String> columns, ImportOptions options,
+                       JobProgress progress) throws Exception {
+        boolean resumable = options.resumable() || options.resume();
+        String key = importKey(profile, table, options);
+        ImportCheckpointStore.Checkpoint checkpoint = options.resume() ? checkpoints.load(key) : null;
+        int resumeAfterRow = checkpoint != null ? checkpoint.committedRow() : 0;
+        List<RowRange> skipRanges = checkpoint != null && checkpoint.committedAfter() != null ? checkpoint.committedAfter() : List.of();
+
+        if (isMongo(profile)) {
+            if (options.staged()) throw new IllegalArgumentException("Staged imports are only supported for SQL databases.");
+            return started(new Writer(profile, table, List.copyOf(columns), null, null, key, resumable, options.quarantine(), resumeAfterRow, skipRanges, progress));
+        }
+
+        String stagingTable = null;
+        InsertPlan plan;
+        try (Connection conn = connectionPools.getConnection(profile)) {
+            if (checkpoint != null && checkpoint.stagingTable() != null && tableExists(conn, checkpoint.stagingTable())) {
+                stagingTable = checkpoint.stagingTable(); // keep loading into the earlier staging table
+            } else if (options.staged() || (checkpoint != null && checkpoint.stagingTable() != null)) {
+                resumeAfterRow = 0; // any rows committed earlier were in a staging table that is gone
+                skipRanges = List.of();
+                stagingTable = stagingTableName(table, key);
+                createStagingTable(conn, table, stagingTable);
+            }
+            plan = InsertPlan.resolve(conn, stagingTable != null ? stagingTable : table, columns);
+        }
+        return started(new Writer(profile, table, List.copyOf(columns), plan, stagingTable, key, resumable, options.quarantine(), resumeAfterRow, skipRanges, progress));
+    }
+
+    /**
+     * Saves a resumable import's first checkpoint. The writer's workers are already running,
+     * so it is closed if that fails rather than left holding their connections.
+     */
+    private Writer started(Writer writer) throws Exception {
+        try {
+            if (writer.resumable) writer.saveCheckpoint();
+            return writer;
+        } catch (Exception e) {
+            writer.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Pooled connections an import into the profile's database holds at most, one per writer.
+     */
+    public int connectionsNeeded(ConnectionProfile profile) {
+        return isMongo(profile) ? 1 : writers(profile);
+    }
+
+    /**
+     * SQL writers each hold a pooled connection, so there are no more of them than a job may use.
+     */
+    private int writers(ConnectionProfile profile) {
+        return isMongo(profile) ? Math.max(1, parallelism) : Math.max(1, Math.min(parallelism, connectionPools.maxJobConnections()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public class Writer implements AutoCloseable {
+        private final ConnectionProfile profile;
+        private final String table;
+        private final List<String> columns;
+        private final InsertPlan plan;
+        private final String stagingTable;
+        private final String key;
+        private final boolean resumable;
+        private final boolean quarantine;
+        private final int resumeAfterRow;
+        private final List<RowRange> skipRanges;
+        private int skipIndex;
+        private final BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final List<Future<?>> workers = new ArrayList<>();
+        // One flag per writer, taken by the writer when it starts or by close() if it never did
+        private final List<AtomicBoolean> started = new ArrayList<>();
+        private final CountDownLatch workersDone;
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+        private final AtomicLong rowsWritten = new AtomicLong();
+        private final RejectFile rejects;
+        private final JobProgress progress;
+
+        // Committed batches not yet contiguous with the watermark, by sequence number
+        private final Map<Integer, RowRange> committedAhead = new HashMap<>();
+        private int watermarkSeq = -1;
+        private int watermarkRow;
+
+        private int[] rowNumbers = new int[batchSize];
+        private List<List<Object>> rows = new ArrayList<>(batchSize);
+        private int nextSeq;
+        private boolean finished;
+
+        private Writer(ConnectionProfile profile, String table, List<String> columns, InsertPlan plan, String stagingTable,
+                       String key, boolean resumable, boolean quarantine, int resumeAfterRow, List<RowRange> skipRanges,
+                       JobProgress progress) {
+            this.profile = profile;
+            this.table = table;
+            this.columns = columns;
+            this.plan = plan;
+            this.stagingTable = stagingTable;
+            this.key = key;
+            this.resumable = resumable;
+            this.quarantine = quarantine;
+            this.rejects = quarantine ? new RejectFile(table, columns) : null;
+            this.progress = progress;
+            this.resumeAfterRow = resumeAfterRow;
+            this.skipRanges = skipRanges;
+            this.watermarkRow = resumeAfterRow;
+            int n = writers(profile);
+            this.workersDone = new CountDownLatch(n);
+            for (int i = 0; i < n; i++) {
+                AtomicBoolean claim = new AtomicBoolean();
+                started.add(claim);
+                workers.add(executor.submit(() -> drain(claim)));
+            }
+        }
+
+        /**
+         * The resolved insert plan, or null when importing into MongoDB.
+         */
+        public InsertPlan getPlan() {
+            return plan;
+        }
+
+        /**
+         * Queues a row for insertion. Blocks while the writers are behind, and throws as soon
+         * as any writer has failed so the parser stops early. Rows already committed by the
+         * import being resumed are skipped.
+         */
+        public void add(int rowNumber, List<Object> row) throws Exception {
+            if (rowNumber <= resumeAfterRow || isCommittedEarlier(rowNumber)) return;
+            rowNumbers[rows.size()] = rowNumber;
+            rows.add(row);
+            if (rows.size() >= batchSize) flush();
+        }
+
+        /**
+         * Writes the remaining rows, waits for all writers, moves staged rows into the target
+         * table and reports the rows inserted.
+         */
+        public ImportResult finish() throws Exception {
+            flush();
+            for (int i = 0; i < workers.size(); i++) enqueue(END);
+            for (Future<?> worker : workers) {
+                try {
+                    worker.get();
+                } catch (ExecutionException e) {
+                    failure.compareAndSet(null, e.getCause() instanceof Exception ex ? ex : e);
+                }
+            }
+            if (rejects != null) rejects.close();
+            throwIfFailed();
+            if (stagingTable != null) mergeStagingTable();
+            if (resumable) checkpoints.delete(key);
+            finished = true;
+            return rejects != null && rejects.count() > 0
+                    ? new ImportResult(rowsWritten.get(), resumeAfterRow, rejects.count(), rejects.path().toString())
+                    : new ImportResult(rowsWritten.get(), resumeAfterRow, 0, null);
+        }
+
+        @Override
+        public void close() {
+            if (rejects != null) rejects.close();
+            if (finished) return;
+            failure.compareAndSet(null, new CancellationException("Import cancelled"));
+            started.forEach(claim -> {
+                if (claim.compareAndSet(false, true)) workersDone.countDown();
+            });
+            workers.forEach(w -> w.cancel(true));
+            // A resumable import keeps its staging table and checkpoint for the next attempt
+            if (stagingTable != null && !resumable) {
+                // A writer still in COPY or executeBatch holds locks on the staging table; past
+                // the timeout the drop is tried anyway and may wait on those locks
+                awaitWorkers();
+                dropTable(stagingTable);
+            }
+        }
+
+        /**
+         * Waits up to {@code dbstudio.import.cancel-timeout-ms} for the cancelled writers to
+         * roll back and exit. The caller may itself be an interrupted (cancelled) job, so the
+         * interrupt is set aside while waiting and restored afterwards.
+         */
+        private void awaitWorkers() {
+            boolean interrupted = Thread.interrupted();
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(cancelTimeoutMs);
+            try {
+                while (true) {
+                    try {
+                        workersDone.await(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                        return;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Rows arrive in increasing order, so the sorted skip ranges are walked with one cursor.
+         */
+        private boolean isCommittedEarlier(int rowNumber) {
+            while (skipIndex < skipRanges.size() && skipRanges.get(skipIndex).to() < rowNumber) skipIndex++;
+            return skipIndex < skipRanges.size() && skipRanges.get(skipIndex).from() <= rowNumber;
+        }
+
+        private void flush() throws Exception {
+            if (rows.isEmpty()) return;
+            enqueue(new Batch(nextSeq++, Arrays.copyOf(rowNumbers, rows.size()), rows));
+            rows = new ArrayList<>(batchSize);
+        }
+
+        private void enqueue(Batch batch) throws Exception {
+            // Poll instead of a plain put() so a parser never blocks forever on dead writers
+            while (!queue.offer(batch, 200, TimeUnit.MILLISECONDS)) throwIfFailed();
+            throwIfFailed();
+        }
+
+        private void throwIfFailed() throws Exception {
+            Exception e = failure.get();
+            if (e != null) throw e;
+        }
+
+        private Void drain(AtomicBoolean claim) throws Exception {
+            if (!claim.compareAndSet(false, true)) return null; // closed before this writer started
+            try {
+                if (isMongo(profile)) drainToMongo();
+                else if (quarantine) drainToJdbcIsolatingRejects();
+                else if (resumable) drainToJdbcInTransactions();
+                else drainToJdbc();
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+                throw e;
+            } finally {
+                workersDone.countDown();
+            }
+            return null;
+        }
+
+        /**
+         * Takes the next batch, or END once another worker has failed.
+         */
+        private Batch next() throws InterruptedException {
+            Batch batch = queue.take();
+            return failure.get() != null ? END : batch;
+        }
+
+        private void drainToMongo() throws Exception {
+            try (MongoClientRegistry.Lease lease = mongoClients.acquire(profile)) {
+                MongoCollection<Document> collection = lease.client().getDatabase(profile.getDatabaseName()).getCollection(table);
+                for (Batch batch = next(); batch != END; batch = next()) {
+                    List<Document> docs = new ArrayList<>(batch.rows().size());
+                    for (List<Object> row : batch.rows()) {
+                        Document doc = new Document();
+                        for (int i = 0; i < columns.size(); i++) doc.put(columns.get(i), i < row.size() ? row.get(i) : null);
+                        docs.add(doc);
+                    }
+                    if (quarantine) insertManyIsolatingRejects(collection, docs, batch);
+                    else {
+                        collection.insertMany(docs);
+                        written(docs.size());
+                    }
+                    if (resumable) markCommitted(List.of(batch));
+                }
+            }
+        }
+
+        private void drainToJdbc() throws Exception {
+            try (Connection conn = connectionPools.getConnection(profile)) {
+                BulkLoaders.Loader loader = BulkLoaders.forConnection(conn, plan, nativeBulkLoad);
+                rowsWritten.addAndGet(loader.load(() -> {
+                    Batch batch = next();
+                    if (batch == END) return null;
+                    progress.addRows(batch.rows().size()); // rows handed to the database; autocommit has no commit points
+                    return batch;
+                }));
+            }
+        }
+
+        /**
+         * Loads up to {@code commitEveryBatches} batches per transaction and records each commit.
+         */
+        private void drainToJdbcInTransactions() throws Exception {
+            try (Connection conn = connectionPools.getConnection(profile)) {
+                BulkLoaders.Loader loader = BulkLoaders.forConnection(conn, plan, nativeBulkLoad);
+                conn.setAutoCommit(false);
+                try {
+                    while (true) {
+                        Batch first = next();
+                        if (first == END) break;
+                        List<Batch> group = new ArrayList<>(List.of(first));
+                        long loaded = loader.load(new BulkLoaders.BatchSource() {
+                            private boolean firstTaken;
+
+                            @Override
+                            public Batch next() throws InterruptedException {
+                                if (!firstTaken) {
+                                    firstTaken = true;
+                                    return first;
+                                }
+                                if (group.size() >= commitEveryBatches) return null;
+                                Batch batch = Writer.this.next();
+                                if (batch == END) {
+                                    queue.put(END); // leave the end marker for the outer loop
+                                    return null;
+                                }
+                                group.add(batch);
+                                return batch;
+                            }
+                        });
+                        conn.commit();
+                        written(loaded);
+                        markCommitted(group);
+                    }
+                } catch (Exception e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+        }
+
+        private void written(long rows) {
+            rowsWritten.addAndGet(rows);
+            progress.addRows(rows);
+        }
+
+        // ---- Quarantine ----
+
+        /**
+         * Commits every batch on its own so a failing one can be rolled back and bisected.
+         */
+        private void drainToJdbcIsolatingRejects() throws Exception {
+            try (Connection conn = connectionPools.getConnection(profile)) {
+                BulkLoaders.Loader loader = BulkLoaders.forConnection(conn, plan, nativeBulkLoad);
+                conn.setAutoCommit(false);
+                try {
+                    for (Batch batch = next(); batch != END; batch = next()) {
+                        loadIsolatingRejects(conn, loader, batch);
+                        if (resumable) markCommitted(List.of(batch));
+                    }
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+        }
+
+        private void loadIsolatingRejects(Connection conn, BulkLoaders.Loader loader, Batch batch) throws Exception {
+            try {
+                long loaded = loader.load(new BulkLoaders.BatchSource() {
+                    private boolean taken;
+
+                    @Override
+                    public Batch next() {
+                        if (taken) return null;
+                        taken = true;
+                        return batch;
+                    }
+                });
+                conn.commit();
+                written(loaded);
+            } catch (SQLException e) {
+                conn.rollback();
+                // A lost connection is not the rows' fault
+                if (isConnectionFailure(e) || !conn.isValid(5)) throw e;
+                int size = batch.rows().size();
+                if (size == 1) {
+                    rejects.add(batch.rowNumbers()[0], batch.rows().get(0), e.getMessage());
+                    return;
+                }
+                loadIsolatingRejects(conn, loader, batch.slice(0, size / 2));
+                loadIsolatingRejects(conn, loader, batch.slice(size / 2, size));
+            }
+        }
+
+        /**
+         * Unordered inserts let MongoDB write every valid document and report the others by index.
+         */
+        private void insertManyIsolatingRejects(MongoCollection<Document> collection, List<Document> docs, Batch batch) throws IOException {
+            try {
+                collection.insertMany(docs, new InsertManyOptions().ordered(false));
+                written(docs.size());
+            } catch (MongoBulkWriteException e) {
+                List<BulkWriteError> errors = e.getWriteErrors();
+                if (errors.isEmpty()) throw e; // e.g. a write concern error
+                written(e.getWriteResult().getInsertedCount());
+                for (BulkWriteError error : errors) {
+                    rejects.add(batch.rowNumbers()[error.getIndex()], batch.rows().get(error.getIndex()), error.getMessage());
+                }
+            }
+        }
+
+        /**
+         * Advances the checkpoint over every batch committed without gaps before it. Parallel
+         * writers commit out of order, so batches committed past a gap are recorded as ranges.
+         */
+        private synchronized void markCommitted(List<Batch> batches) throws Exception {
+            for (Batch batch : batches) committedAhead.put(batch.seq(), new RowRange(batch.rowNumbers()[0], batch.lastRow()));
+            while (committedAhead.containsKey(watermarkSeq + 1)) {
+                watermarkRow = committedAhead.remove(++watermarkSeq).to();
+            }
+            saveCheckpoint();
+        }
+
+        private synchronized void saveCheckpoint() throws Exception {
+            List<RowRange> ahead = new ArrayList<>();
+            for (RowRange range : skipRanges) if (range.from() > watermarkRow) ahead.add(range);
+            ahead.addAll(committedAhead.values());
+            ahead.sort(Comparator.comparingInt(RowRange::from));
+            checkpoints.save(key, new ImportCheckpointStore.Checkpoint(table, key, watermarkRow, ahead, stagingTable, System.currentTimeMillis()));
+        }
+
+        /**
+         * Copies the staged rows into the target and drops the staging table, in one transaction
+         * so the target either receives every row or none.
+         */
+        private void mergeStagingTable() throws SQLException {
+            try (Connection conn = connectionPools.getConnection(profile)) {
+                conn.setAutoCommit(false);
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.executeUpdate("INSERT INTO " + table + " (" + plan.getColumnList() + ") SELECT "
+                            + plan.getColumnList() + " FROM " + stagingTable);
+                    stmt.executeUpdate("DROP TABLE " + stagingTable);
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw new SQLException("Copying staged rows into " + table + " failed: " + e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+        }
+
+        private void dropTable(String name) {
+            try (Connection conn = connectionPools.getConnection(profile);
+                 Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DROP TABLE " + name);
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Rejected rows as CSV: the source row number, the imported columns and the database error.
+     * The file is only created once the first row is rejected.
+     */
+    private class RejectFile {
+        private final String table;
+        private final List<String> columns;
+        private Path path;
+        private BufferedWriter out;
+        private long count;
+        private boolean closed;
+
+        RejectFile(String table, List<String> columns) {
+            this.table = table;
+            this.columns = columns;
+        }
+
+        synchronized void add(int rowNumber, List<Object> row, String error) throws IOException {
+            if (closed) return;
+            if (count >= maxRejectedRows) {
+                throw new IOException("More than " + maxRejectedRows + " rows were rejected; import stopped. Last error at row "
+                        + rowNumber + ": " + error);
+            }
+            if (out == null) open();
+            count++;
+            List<Object> record = new ArrayList<>(columns.size() + 2);
+            record.add(rowNumber);
+            for (int i = 0; i < columns.size(); i++) record.add(i < row.size() ? row.get(i) : null);
+            record.add(error);
+            CsvExporter.writeRecord(out, record);
+        }
+
+        private void open() throws IOException {
+            Path dir = Paths.get(exportsDir);
+            Files.createDirectories(dir);
+            String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            path = dir.resolve("rejects-" + table.replaceAll("[^A-Za-z0-9_.-]", "_") + "-" + stamp + ".csv");
+            out = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+            List<Object> header = new ArrayList<>(columns.size() + 2);
+            header.add("row");
+            header.addAll(columns);
+            header.add("error");
+            CsvExporter.writeRecord(out, header);
+        }
+
+        synchronized long count() {
+            return count;
+        }
+
+        synchronized Path path() {
+            return path;
+        }
+
+        synchronized void close() {
+            closed = true;
+            if (out == null) return;
+            try {
+                out.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            out = null;
+        }
+    }
+
+    // ---- Staging tables ----
+
+    /**
+     * Identifies an import of one file into one table, for checkpoints and staging table names.
+     */
+    private static String importKey(ConnectionProfile profile, String table, ImportOptions options) {
+        return ProfileKey.hashSecret(ProfileKey.of(profile) + "|" + table + "|" + options.sourceName() + "|" + options.sourceSize())
+                .substring(0, 24);
+    }
+
+    private static String stagingTableName(String table, String key) {
+        String name = "dbstudio_stage_" + key.substring(0, 12);
+        int dot = table.lastIndexOf('.');
+        return dot > 0 ? table.substring(0, dot + 1) + name : name; // same schema as the target
+    }
+
+    /**
+     * Creates an empty copy of the target's columns, replacing any leftover from an earlier attempt.
+     */
+    private static void createStagingTable(Connection conn, String table, String stagingTable) throws SQLException {
+        String dbProduct = conn.getMetaData().getDatabaseProductName().toLowerCase();
+        try (Statement stmt = conn.createStatement()) {
+            if (tableExists(conn, stagingTable)) stmt.executeUpdate("DROP TABLE " + stagingTable);
+
+            if (dbProduct.contains("postgresql")) {
+                stmt.executeUpdate("CREATE TABLE " + stagingTable + " (LIKE " + table + " INCLUDING DEFAULTS)");
+            } else if (dbProduct.contains("mysql") || dbProduct.contains("mariadb")) {
+                stmt.executeUpdate("CREATE TABLE " + stagingTable + " LIKE " + table);
+            } else if (dbProduct.contains("sql server")) {
+                stmt.executeUpdate("SELECT * INTO " + stagingTable + " FROM " + table + " WHERE 1 = 0");
+            } else {
+                stmt.executeUpdate("CREATE TABLE " + stagingTable + " AS SELECT * FROM " + table + " WHERE 1 = 0");
+            }
+        }
+    }
+
+    private static boolean tableExists(Connection conn, String table) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        String schema = null;
+        String name = table;
+        if (table.contains(".")) {
+            schema = table.substring(0, table.lastIndexOf('.'));
+            name = table.substring(table.lastIndexOf('.') + 1);
+        }
+        for (String candidate : new LinkedHashSet<>(List.of(name, name.toUpperCase(), name.toLowerCase()))) {
+            try (ResultSet rs = meta.getTables(null, schema, candidate, null)) {
+                if (rs.next()) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * SQLState class 08 is a connection exception.
+     */
+    private static boolean isConnectionFailure(SQLException e) {
+        return e.getSQLState() != null && e.getSQLState().startsWith("08");
+    }
+
+    private static boolean isMongo(ConnectionProfile profile) {
+        return profile.getMongoUri() != null && !profile.getMongoUri().isBlank();
+    }
+}
@@ -0,0 +1,341 @@
+package com.maze.DB.Studio.service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Everything needed to insert rows into one table, resolved once per import: the INSERT
+ * statement, the JDBC type of every imported column, and a binder per column that converts
+ * parsed values (strings, doubles, timestamps, ...) with the matching typed setter.
+ */
+public class InsertPlan {
+
+    // "yyyy-MM-dd HH:mm:ss" with optional fractional seconds
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = new DateTimeFormatterBuilder()
+            .appendPattern("yyyy-MM-dd HH:mm:ss")
+            .optionalStart().appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true).optionalEnd()
+            .toFormatter();
+
+    @FunctionalInterface
+    public interface Binder {
+        void bind(PreparedStatement ps, int index, Object value) throws SQLException;
+    }
+
+    private final String table;
+    private final String dbProduct;
+    private final List<String> columns;
+    private final int[] jdbcTypes;
+    private final int[] precisions;
+    private final int[] scales;
+    private final Binder[] binders;
+    private final String columnList;
+    private final String insertSql;
+
+    private record ColumnInfo(int jdbcType, int precision, int scale) {
+    }
+
+    private InsertPlan(String table, String dbProduct, List<String> columns, List<ColumnInfo> info) {
+        this.table = table;
+        this.dbProduct = dbProduct;
+        this.columns = columns;
+        this.jdbcTypes = new int[columns.size()];
+        this.precisions = new int[columns.size()];
+        this.scales = new int[columns.size()];
+        this.binders = new Binder[columns.size()];
+        for (int i = 0; i < binders.length; i++) {
+            jdbcTypes[i] = info.get(i).jdbcType();
+            precisions[i] = info.get(i).precision();
+            scales[i] = info.get(i).scale();
+            binders[i] = binderFor(jdbcTypes[i]);
+        }
+
+        this.columnList = columns.stream()
+                .map(c -> quoteColumn(c, dbProduct))
+                .collect(Collectors.joining(","));
+        String qMarks = String.join(",", Collections.nCopies(columns.size(), "?"));
+        this.insertSql = "INSERT INTO " + table + " (" + columnList + ") VALUES (" + qMarks + ")";
+    }
+
+    /**
+     * Reads the table's column types once. Columns missing from the metadata get
+     * {@link Types#OTHER} and are bound with {@code setObject}.
+     */
+    public static InsertPlan resolve(Connection conn, String table, List<String> columns) throws SQLException {
+        String dbProduct = conn.getMetaData().getDatabaseProductName().toLowerCase();
+        Map<String, ColumnInfo> columnTypes = getColumnTypes(conn, table);
+        List<ColumnInfo> info = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            info.add(columnTypes.getOrDefault(column.toLowerCase(), new ColumnInfo(Types.OTHER, 0, 0)));
+        }
+        return new InsertPlan(table, dbProduct, List.copyOf(columns), info);
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getDbProduct() {
+        return dbProduct;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public int getJdbcType(int column) {
+        return jdbcTypes[column];
+    }
+
+    public int getPrecision(int column) {
+        return precisions[column];
+    }
+
+    public int getScale(int column) {
+        return scales[column];
+    }
+
+    /**
+     * The quoted, comma-separated column names, e.g. for COPY or LOAD DATA statements.
+     */
+    public String getColumnList() {
+        return columnList;
+    }
+
+    public String getInsertSql() {
+        return insertSql;
+    }
+
+    /**
+     * True when a column is binary, which text-only bulk loaders cannot carry.
+     */
+    public boolean hasBinaryColumns() {
+        for (int type : jdbcTypes) {
+            if (type == Types.BINARY || type == Types.VARBINARY || type == Types.LONGVARBINARY || type == Types.BLOB) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Binds one row to the statement's parameters. Missing trailing values are bound as NULL.
+     */
+    public void bindRow(PreparedStatement ps, List<Object> row, int rowNumber) throws SQLException {
+        for (int i = 0; i < binders.length; i++) {
+            Object val = i < row.size() ? row.get(i) : null;
+            try {
+                if (val == null) {
+                    bindNull(ps, i);
+                } else {
+                    binders[i].bind(ps, i + 1, val);
+                }
+            } catch (Exception e) {
+                throw new SQLException("Error at row " + rowNumber + ", column '" + columns.get(i) + "' with value '" + val + "': " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Converts a parsed value to the Java type matching the column, e.g. for bulk-load
+     * protocols that take objects or text instead of bound parameters.
+     */
+    public Object convert(int column, Object v) {
+        if (v == null) return null;
+        return switch (jdbcTypes[column]) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER ->
+                    v instanceof Number n ? (Object) Math.toIntExact(exactLong(n)) : Integer.parseInt(v.toString().trim());
+            case Types.BIGINT -> v instanceof Number n ? exactLong(n) : Long.parseLong(v.toString().trim());
+            case Types.DECIMAL, Types.NUMERIC -> toBigDecimal(v);
+            case Types.FLOAT, Types.DOUBLE, Types.REAL ->
+                    v instanceof Number n ? n.doubleValue() : Double.parseDouble(v.toString().trim());
+            case Types.BIT, Types.BOOLEAN -> toBoolean(v);
+            case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> toTimestamp(v);
+            case Types.DATE -> toDate(v);
+            case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR, Types.LONGNVARCHAR, Types.CLOB, Types.NCLOB ->
+                    toText(v);
+            case Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY, Types.BLOB -> toBytes(v);
+            default -> v;
+        };
+    }
+
+    /**
+     * Text form of a converted value accepted by COPY / LOAD DATA; booleans are written as 1/0
+     * and binary values in PostgreSQL's {@code \x} hex form.
+     */
+    public String convertToText(int column, Object v) {
+        Object converted = convert(column, v);
+        if (converted == null) return null;
+        if (converted instanceof Boolean b) return b ? "1" : "0";
+        if (converted instanceof byte[] bytes) return "\\x" + HexFormat.of().formatHex(bytes);
+        if (converted instanceof BigDecimal d) return d.toPlainString();
+        if (converted instanceof Double d && d == Math.rint(d) && Math.abs(d) < 1e15) return Long.toString(d.longValue());
+        return converted.toString();
+    }
+
+    private void bindNull(PreparedStatement ps, int i) throws SQLException {
+        if (jdbcTypes[i] == Types.OTHER) ps.setObject(i + 1, null);
+        else ps.setNull(i + 1, jdbcTypes[i]);
+    }
+
+    // ---- Binders ----
+
+    private static Binder binderFor(int jdbcType) {
+        return switch (jdbcType) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER ->
+                    (ps, i, v) -> ps.setInt(i, v instanceof Number n ? Math.toIntExact(exactLong(n)) : Integer.parseInt(v.toString().trim()));
+            case Types.BIGINT ->
+                    (ps, i, v) -> ps.setLong(i, v instanceof Number n ? exactLong(n) : Long.parseLong(v.toString().trim()));
+            case Types.DECIMAL, Types.NUMERIC -> (ps, i, v) -> ps.setBigDecimal(i, toBigDecimal(v));
+            case Types.FLOAT, Types.DOUBLE, Types.REAL ->
+                    (ps, i, v) -> ps.setDouble(i, v instanceof Number n ? n.doubleValue() : Double.parseDouble(v.toString().trim()));
+            case Types.BIT, Types.BOOLEAN -> (ps, i, v) -> ps.setBoolean(i, toBoolean(v));
+            case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> (ps, i, v) -> ps.setTimestamp(i, toTimestamp(v));
+            case Types.DATE -> (ps, i, v) -> ps.setDate(i, toDate(v));
+            case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR, Types.LONGNVARCHAR, Types.CLOB, Types.NCLOB ->
+                    (ps, i, v) -> ps.setString(i, toText(v));
+            case Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY, Types.BLOB -> (ps, i, v) -> ps.setBytes(i, toBytes(v));
+            default -> PreparedStatement::setObject;
+        };
+    }
+
+    /**
+     * Integer columns accept whole-number doubles (Excel stores every number as a double).
+     * Values that do not fit fail with an {@link ArithmeticException} instead of wrapping.
+     */
+    private static Long exactLong(Number n) {
+        if (n instanceof Double || n instanceof Float || n instanceof BigDecimal) {
+            return toBigDecimal(n).longValueExact();
+        }
+        if (n instanceof BigInteger b) return b.longValueExact();
+        return n.longValue();
+    }
+
+    private static BigDecimal toBigDecimal(Object v) {
+        if (v instanceof BigDecimal d) return d;
+        if (v instanceof Double || v instanceof Float) return BigDecimal.valueOf(((Number) v).doubleValue());
+        if (v instanceof Number n) return BigDecimal.valueOf(n.longValue());
+        return new BigDecimal(v.toString().trim());
+    }
+
+    private static boolean toBoolean(Object v) {
+        if (v instanceof Boolean b) return b;
+        if (v instanceof Number n) return n.doubleValue() != 0;
+        String s = v.toString().trim();
+        if (s.equalsIgnoreCase("true") || s.equals("1")) return true;
+        if (s.equalsIgnoreCase("false") || s.equals("0")) return false;
+        throw new IllegalArgumentException("Invalid boolean: " + v);
+    }
+
+    private static Timestamp toTimestamp(Object v) {
+        if (v instanceof Timestamp t) return t;
+        if (v instanceof java.util.Date d) return new Timestamp(d.getTime());
+        if (v instanceof LocalDateTime ldt) return Timestamp.valueOf(ldt);
+        String str = v.toString().trim();
+        if (str.isEmpty() || str.equalsIgnoreCase("NULL")) return null;
+        try {
+            return Timestamp.valueOf(LocalDateTime.parse(str, TIMESTAMP_FORMAT));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid timestamp: " + v, e);
+        }
+    }
+
+    private static java.sql.Date toDate(Object v) {
+        if (v instanceof java.sql.Date d) return d;
+        if (v instanceof LocalDate ld) return java.sql.Date.valueOf(ld);
+        if (v instanceof java.util.Date || v instanceof LocalDateTime) {
+            return java.sql.Date.valueOf(toTimestamp(v).toLocalDateTime().toLocalDate());
+        }
+        String str = v.toString().trim();
+        if (str.isEmpty() || str.equalsIgnoreCase("NULL")) return null;
+        if (str.length() > 10) return java.sql.Date.valueOf(toTimestamp(str).toLocalDateTime().toLocalDate());
+        return java.sql.Date.valueOf(LocalDate.parse(str));
+    }
+
+    /**
+     * Text for character columns; whole-number doubles from Excel are written without ".0".
+     */
+    private static String toText(Object v) {
+        if (v instanceof Double d && d == Math.rint(d) && Math.abs(d) < 1e15) {
+            return Long.toString(d.longValue());
+        }
+        return v.toString();
+    }
+
+    /**
+     * Binary columns take byte arrays, {@code \x}-prefixed hex (as written by logical backups),
+     * or any other text as its UTF-8 bytes.
+     */
+    private static byte[] toBytes(Object v) {
+        if (v instanceof byte[] bytes) return bytes;
+        String str = v.toString();
+        if (str.startsWith("\\x")) return HexFormat.of().parseHex(str, 2, str.length());
+        return str.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Utility to fetch column types from DB
+    private static Map<String, ColumnInfo> getColumnTypes(Connection conn, String table) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        String dbProduct = meta.getDatabaseProductName().toLowerCase();
+        // Look in the connection's own database and schema only: a same-named table elsewhere
+        // would give its column types to this one
+        String catalog = conn.getCatalog();
+        String schema = null;
+        String name = table.replaceAll("[\\[\\]\"`]", "");
+        boolean qualified = name.contains(".");
+        if (qualified) {
+            String qualifier = name.substring(0, name.lastIndexOf('.'));
+            name = name.substring(name.lastIndexOf('.') + 1);
+            // MySQL qualifies tables by database, which its driver reports as the catalog
+            if (dbProduct.contains("mysql") || dbProduct.contains("mariadb")) catalog = qualifier;
+            else schema = qualifier;
+        } else {
+            schema = currentSchema(conn);
+        }
+
+        Map<String, ColumnInfo> map = findColumns(meta, catalog, schema, name);
+        // Unqualified names may also resolve outside the current schema (e.g. dbo on SQL Server)
+        if (map.isEmpty() && !qualified && schema != null) map = findColumns(meta, catalog, null, name);
+        return map;
+    }
+
+    private static Map<String, ColumnInfo> findColumns(DatabaseMetaData meta, String catalog, String schema, String name) throws SQLException {
+        // Identifiers may be stored upper- or lower-case depending on the database
+        for (String candidate : new LinkedHashSet<>(List.of(name, name.toUpperCase(), name.toLowerCase()))) {
+            Map<String, ColumnInfo> map = new HashMap<>();
+            try (ResultSet rs = meta.getColumns(catalog, schema, candidate, null)) {
+                while (rs.next()) {
+                    String colName = rs.getString("COLUMN_NAME").toLowerCase();
+                    int sqlType = rs.getInt("DATA_TYPE"); // java.sql.Types
+                    map.put(colName, new ColumnInfo(sqlType, rs.getInt("COLUMN_SIZE"), rs.getInt("DECIMAL_DIGITS")));
+                }
+            }
+            if (!map.isEmpty()) return map;
+        }
+        return Map.of();
+    }
+
+    /**
+     * The connection's current schema, or null for drivers that do not report one.
+     */
+    private static String currentSchema(Connection conn) {
+        try {
+            return conn.getSchema();
+        } catch (SQLException | AbstractMethodError e) {
+            return null;
+        }
+    }
+
+    private static String quoteColumn(String column, String dbProduct) {
+        if (dbProduct.contains("sql server")) return "[" + column + "]";
+        if (dbProduct.contains("mysql") || dbProduct.contains("mariadb")) return "`" + column + "`";
+        if (dbProduct.contains("postgresql")) return "\"" + column + "\"";
+        return column;
+    }
+}
@@ -0,0 +1,342 @@
+package com.maze.DB.Studio.service;
+
+import com.maze.DB.Studio.model.ConnectionProfile;
+import com.maze.DB.Studio.model.JobSnapshot;
+import com.maze.DB.Studio.model.ProfileKey;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs imports, exports, backups and restores outside the request thread. A submitted job gets
+ * an id right away and waits until both a global slot and a slot for its target database are
+ * free, so one busy server cannot take every worker. Each job also states how many pooled
+ * connections it holds at most; jobs on one target only run together while those fit in
+ * {@link ConnectionPoolManager#maxJobConnections()}, so a second job waits instead of timing out
+ * on an exhausted pool. Progress is pushed to subscribers as Server-Sent Events; finished jobs
+ * are kept for a while so their result can still be read.
+ */
+@Service
+@RequiredArgsConstructor
+public class JobManager {
+
+    public enum State {QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED}
+
+    @FunctionalInterface
+    public interface Task {
+        /**
+         * Does the work, reporting progress to the job, and returns the message shown on success.
+         */
+        String run(Job job) throws Exception;
+    }
+
+    @Value("${dbstudio.jobs.max-concurrent:4}")
+    private int maxConcurrent;
+    @Value("${dbstudio.jobs.per-target-limit:2}")
+    private int perTargetLimit;
+    @Value("${dbstudio.jobs.max-waiting:100}")
+    private int maxWaiting;
+    @Value("${dbstudio.jobs.retention-ms:3600000}")
+    private long retentionMs;
+    @Value("${dbstudio.exports.dir:./exports}")
+    private String exportsDir;
+
+    private final ConnectionPoolManager connectionPools;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    // Guarded by this
+    private final Deque<Job> waiting = new ArrayDeque<>();
+    private final Map<String, Integer> runningPerTarget = new HashMap<>();
+    private final Map<String, Integer> connectionsPerTarget = new HashMap<>();
+    private int running;
+
+    /**
+     * Queues a job against the profile's database and returns it immediately.
+     *
+     * @param owner the HTTP session that may see and cancel the job
+     * @throws IllegalStateException when too many jobs are already waiting
+     */
+    public Job submit(String owner, String type, String description, ConnectionProfile profile, Task task) {
+        return submit(owner, type, description, profile, 1, task);
+    }
+
+    /**
+     * As {@link #submit(String, String, String, ConnectionProfile, Task)} for a job that holds up
+     * to {@code connections} pooled connections at once, e.g. parallel workers plus a coordinator.
+     */
+    public Job submit(String owner, String type, String description, ConnectionProfile profile, int connections, Task task) {
+        return submit(owner, type, description, ProfileKey.of(profile).url(),
+                Math.max(1, Math.min(connections, connectionPools.maxJobConnections())), task);
+    }
+
+    /**
+     * Queues a job that does not touch a database, such as verifying a file; {@code target} names
+     * the resource the per-target limit applies to.
+     */
+    public Job submit(String owner, String type, String description, String target, Task task) {
+        return submit(owner, type, description, target, 0, task);
+    }
+
+    private Job submit(String owner, String type, String description, String target, int connections, Task task) {
+        Job job = new Job(UUID.randomUUID().toString(), owner, type, description, target, connections, task);
+        synchronized (this) {
+            if (waiting.size() >= maxWaiting) {
+                throw new IllegalStateException("Too many background jobs are waiting; try again later.");
+            }
+            jobs.put(job.id, job);
+            waiting.addLast(job);
+        }
+        dispatch();
+        return job;
+    }
+
+    /**
+     * Returns the owner's job, or null when it does not exist, has expired or belongs to someone else.
+     */
+    public Job find(String owner, String id) {
+        Job job = id == null ? null : jobs.get(id);
+        return job != null && job.owner.equals(owner) ? job : null;
+    }
+
+    public void cancel(Job job) {
+        synchronized (this) {
+            if (waiting.remove(job)) {
+                job.finish(State.CANCELLED, null, "Cancelled before it started");
+                return;
+            }
+        }
+        job.cancelRequested = true;
+        Thread worker = job.worker;
+        if (worker != null) worker.interrupt();
+    }
+
+    /**
+     * Opens an event stream for the job. The current state is sent at once, then every
+     * progress interval until the job finishes.
+     */
+    public SseEmitter subscribe(Job job) {
+        SseEmitter emitter = new SseEmitter(0L); // no timeout; completed when the job ends
+        emitter.onCompletion(() -> job.subscribers.remove(emitter));
+        emitter.onTimeout(() -> job.subscribers.remove(emitter));
+        emitter.onError(e -> job.subscribers.remove(emitter));
+        job.subscribers.add(emitter);
+        job.publish();
+        if (job.isDone()) { // finished while subscribing; publish() already sent the final state
+            job.subscribers.remove(emitter);
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    /**
+     * A new file in the exports folder for a job's output, named after the job type and id.
+     */
+    public Path newArtifact(Job job, String extension) throws IOException {
+        Path dir = Paths.get(exportsDir);
+        Files.createDirectories(dir);
+        return dir.resolve(job.type + "-" + job.id.substring(0, 8) + "-" + System.currentTimeMillis() + "." + extension);
+    }
+
+    // ---- Scheduling ----
+
+    /**
+     * Starts waiting jobs in submission order, skipping any whose target is at its job limit or
+     * has too few connections left. Once a job waits for connections, later jobs on the same
+     * target wait behind it so smaller ones cannot starve it.
+     */
+    private synchronized void dispatch() {
+        Set<String> waitingForConnections = new HashSet<>();
+        Iterator<Job> it = waiting.iterator();
+        while (running < maxConcurrent && it.hasNext()) {
+            Job job = it.next();
+            int busy = runningPerTarget.getOrDefault(job.target, 0);
+            if (busy >= perTargetLimit || waitingForConnections.contains(job.target)) continue;
+            int used = connectionsPerTarget.getOrDefault(job.target, 0);
+            if (busy > 0 && used + job.connections > connectionPools.maxJobConnections()) {
+                waitingForConnections.add(job.target);
+                continue;
+            }
+            it.remove();
+            running++;
+            runningPerTarget.put(job.target, busy + 1);
+            connectionsPerTarget.put(job.target, used + job.connections);
+            executor.execute(() -> run(job));
+        }
+    }
+
+    private void run(Job job) {
+        job.worker = Thread.currentThread();
+        try {
+            if (job.cancelRequested) throw new CancellationException();
+            job.start();
+            String message = job.task.run(job);
+            job.finish(State.SUCCEEDED, message, null);
+        } catch (Exception e) {
+            if (job.cancelRequested) {
+                job.finish(State.CANCELLED, null, "Cancelled");
+            } else {
+                e.printStackTrace();
+                job.finish(State.FAILED, null, e.getMessage() != null ? e.getMessage() : e.toString());
+            }
+        } finally {
+            job.worker = null;
+            synchronized (this) {
+                running--;
+                runningPerTarget.merge(job.target, -1, Integer::sum);
+                runningPerTarget.remove(job.target, 0);
+                connectionsPerTarget.merge(job.target, -job.connections, Integer::sum);
+                connectionsPerTarget.remove(job.target, 0);
+            }
+            dispatch();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${dbstudio.jobs.progress-interval-ms:1000}")
+    public void publishProgress() {
+        for (Job job : jobs.values()) {
+            if (job.state == State.RUNNING && !job.subscribers.isEmpty()) job.publish();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${dbstudio.jobs.sweep-interval-ms:60000}")
+    public void removeExpiredJobs() {
+        long cutoff = System.currentTimeMillis() - retentionMs;
+        jobs.values().removeIf(job -> job.finishedAt > 0 && job.finishedAt < cutoff);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public static class Job implements JobProgress {
+        private final String id;
+        private final String owner;
+        private final String type;
+        private final String description;
+        private final String target;
+        private final int connections;
+        private final Task task;
+        private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private volatile long totalBytes;
+        private volatile State state = State.QUEUED;
+        private volatile long startedAt;
+        private volatile long finishedAt;
+        private volatile String message;
+        private volatile String error;
+        private volatile String artifact;
+        private volatile Thread worker;
+        private volatile boolean cancelRequested;
+
+        private Job(String id, String owner, String type, String description, String target, int connections, Task task) {
+            this.id = id;
+            this.owner = owner;
+            this.type = type;
+            this.description = description;
+            this.target = target;
+            this.connections = connections;
+            this.task = task;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * File name of the job's output in the exports folder, or null.
+         */
+        public String getArtifact() {
+            return artifact;
+        }
+
+        /**
+         * Also where cancellation takes effect: drivers and writers rarely react to interrupts,
+         * but they all report progress.
+         */
+        @Override
+        public void addRows(long n) {
+            if (cancelRequested) throw new CancellationException("Job cancelled");
+            rows.addAndGet(n);
+        }
+
+        @Override
+        public void addBytes(long n) {
+            if (cancelRequested) throw new CancellationException("Job cancelled");
+            bytes.addAndGet(n);
+        }
+
+        @Override
+        public void setTotalBytes(long totalBytes) {
+            this.totalBytes = totalBytes;
+        }
+
+        /**
+         * Records the file the job produced; only its name is exposed.
+         */
+        public void setArtifact(Path file) {
+            this.artifact = file == null ? null : file.getFileName().toString();
+        }
+
+        public JobSnapshot snapshot() {
+            long end = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+            long elapsedMs = startedAt > 0 ? end - startedAt : 0;
+            double seconds = elapsedMs / 1000.0;
+            long rowCount = rows.get(), byteCount = bytes.get();
+            long eta = -1;
+            if (state == State.RUNNING && totalBytes > 0 && byteCount > 0 && seconds > 0) {
+                double bytesPerSecond = byteCount / seconds;
+                eta = Math.round(Math.max(0, totalBytes - byteCount) / bytesPerSecond);
+            }
+            return new JobSnapshot(id, type, description, state.name(), rowCount, byteCount, totalBytes,
+                    seconds > 0 ? rowCount / seconds : 0, eta, elapsedMs, message, error, artifact);
+        }
+
+        public boolean isDone() {
+            return state != State.QUEUED && state != State.RUNNING;
+        }
+
+        private void start() {
+            startedAt = System.currentTimeMillis();
+            state = State.RUNNING;
+            publish();
+        }
+
+        private void finish(State state, String message, String error) {
+            if (startedAt == 0) startedAt = System.currentTimeMillis();
+            this.finishedAt = System.currentTimeMillis();
+            this.message = message;
+            this.error = error;
+            this.state = state;
+            publish();
+            subscribers.forEach(SseEmitter::complete);
+            subscribers.clear();
+        }
+
+        private void publish() {
+            JobSnapshot snapshot = snapshot();
+            for (SseEmitter emitter : subscribers) {
+                try {
+                    emitter.send(SseEmitter.event().name("progress").data(snapshot, MediaType.APPLICATION_JSON));
+                } catch (IOException | IllegalStateException e) {
+                    subscribers.remove(emitter); // the browser went away
+                }
+            }
+        }
+    }
+}
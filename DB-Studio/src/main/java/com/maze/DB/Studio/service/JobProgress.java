@@ -0,0 +1,24 @@
+package com.maze.DB.Studio.service;
+
+/**
+ * Receives progress from long-running work such as imports and exports. Implementations must
+ * be thread-safe: the import pipeline reports from several writer threads at once. A cancelled
+ * job's progress methods throw {@link java.util.concurrent.CancellationException} to stop the work.
+ */
+public interface JobProgress {
+
+    JobProgress NONE = new JobProgress() {
+    };
+
+    default void addRows(long rows) {
+    }
+
+    default void addBytes(long bytes) {
+    }
+
+    /**
+     * Total size of the input when known, which allows an ETA to be estimated from the bytes read.
+     */
+    default void setTotalBytes(long totalBytes) {
+    }
+}
@@ -0,0 +1,177 @@
+package com.maze.DB.Studio.service;
+
+import com.maze.DB.Studio.model.ConnectionProfile;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.sql.*;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Pages through a table by seeking on its primary key (or a single-column unique index)
+ * with {@code WHERE key > ?} instead of OFFSET, so deep pages cost the same as the first one.
+ * Tables without a usable single-column key are left to the regular OFFSET pagination.
+ */
+@Component
+@RequiredArgsConstructor
+public class KeysetPaginator {
+
+    private static final Pattern BROWSE_QUERY =
+            Pattern.compile("(?is)^\\s*select\\s+\\*\\s+from\\s+([A-Za-z0-9_$.\\[\\]\"`]+)\\s*;?\\s*$");
+
+    private final ConnectionPoolManager connectionPools;
+    private final SchemaMetadataCache metadataCache;
+
+    public record KeyColumn(String name, int jdbcType) {
+    }
+
+    public record Page(List<Object> headers, List<List<Object>> rows, String lastKey, boolean lastPage) {
+    }
+
+    /**
+     * Returns the table name when the SQL is a plain {@code SELECT * FROM table}, the only
+     * shape keyset pagination rewrites; null otherwise.
+     */
+    public static String browsedTable(String sql) {
+        Matcher m = BROWSE_QUERY.matcher(sql);
+        return m.matches() ? m.group(1) : null;
+    }
+
+    /**
+     * Finds the single-column key to seek on, or null when the table has none that can be
+     * compared and bound as text (integers, decimals and character types).
+     */
+    public KeyColumn findKey(ConnectionProfile profile, String table) throws Exception {
+        return metadataCache.getValue(profile, "keyset", profile.getDatabaseName(), table,
+                () -> loadKey(profile, unquote(table))).orElse(null);
+    }
+
+    /**
+     * Fetches the page that follows {@code afterKey} (or the first page when it is null).
+     */
+    public Page fetchPage(ConnectionProfile profile, String table, KeyColumn key, String afterKey, int size) throws SQLException {
+        try (Connection conn = connectionPools.getConnection(profile)) {
+            String sql = buildSeekSql(conn.getMetaData().getDatabaseProductName().toLowerCase(), table, key, afterKey != null, size + 1);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                if (afterKey != null) ps.setObject(1, afterKey, key.jdbcType());
+                ps.setMaxRows(size + 1);
+                try (ResultSet rs = ps.executeQuery()) {
+                    ResultSetMetaData meta = rs.getMetaData();
+                    int colCount = meta.getColumnCount();
+                    List<Object> headers = new ArrayList<>();
+                    int keyIndex = 0;
+                    for (int i = 1; i <= colCount; i++) {
+                        headers.add(meta.getColumnLabel(i));
+                        if (meta.getColumnLabel(i).equalsIgnoreCase(key.name())) keyIndex = i;
+                    }
+
+                    List<List<Object>> rows = new ArrayList<>();
+                    String lastKey = null;
+                    while (rs.next()) {
+                        if (rows.size() == size) {
+                            return new Page(headers, rows, lastKey, false);
+                        }
+                        List<Object> row = new ArrayList<>();
+                        for (int i = 1; i <= colCount; i++) row.add(rs.getObject(i));
+                        rows.add(row);
+                        lastKey = keyIndex > 0 ? rs.getString(keyIndex) : null;
+                    }
+                    return new Page(headers, rows, lastKey, true);
+                }
+            }
+        }
+    }
+
+    private String buildSeekSql(String dbProduct, String table, KeyColumn key, boolean hasAfter, int limit) {
+        String column = quote(key.name(), dbProduct);
+        String where = hasAfter ? " WHERE " + column + " > ?" : "";
+        String orderBy = " ORDER BY " + column;
+
+        if (dbProduct.contains("sql server")) {
+            return "SELECT TOP (" + limit + ") * FROM " + table + where + orderBy;
+        } else if (dbProduct.contains("oracle")) {
+            return "SELECT * FROM " + table + where + orderBy + " FETCH FIRST " + limit + " ROWS ONLY";
+        } else if (dbProduct.contains("mysql") || dbProduct.contains("mariadb") || dbProduct.contains("postgresql")
+                || dbProduct.contains("sqlite") || dbProduct.contains("h2")) {
+            return "SELECT * FROM " + table + where + orderBy + " LIMIT " + limit;
+        }
+        return "SELECT * FROM " + table + where + orderBy; // row limit applied with setMaxRows
+    }
+
+    private Optional<KeyColumn> loadKey(ConnectionProfile profile, String table) throws SQLException {
+        try (Connection conn = connectionPools.getConnection(profile)) {
+            DatabaseMetaData meta = conn.getMetaData();
+            String schema = null;
+            String name = table;
+            if (table.contains(".")) {
+                schema = table.substring(0, table.lastIndexOf('.'));
+                name = table.substring(table.lastIndexOf('.') + 1);
+            }
+
+            // Identifiers may be stored upper- or lower-case depending on the database
+            for (String candidate : new LinkedHashSet<>(List.of(name, name.toUpperCase(), name.toLowerCase()))) {
+                String column = singleColumnKey(meta, schema, candidate);
+                if (column == null) continue;
+                try (ResultSet rs = meta.getColumns(null, schema, candidate, column)) {
+                    if (rs.next() && isSeekable(rs.getInt("DATA_TYPE"))) {
+                        return Optional.of(new KeyColumn(column, rs.getInt("DATA_TYPE")));
+                    }
+                }
+                return Optional.empty();
+            }
+            return Optional.empty();
+        }
+    }
+
+    private String singleColumnKey(DatabaseMetaData meta, String schema, String table) throws SQLException {
+        List<String> pk = new ArrayList<>();
+        try (ResultSet rs = meta.getPrimaryKeys(null, schema, table)) {
+            while (rs.next()) pk.add(rs.getString("COLUMN_NAME"));
+        }
+        if (pk.size() == 1) return pk.get(0);
+        if (!pk.isEmpty()) return null; // composite primary key; seeking on part of it would skip rows
+
+        Map<String, List<String>> uniqueIndexes = new LinkedHashMap<>();
+        try (ResultSet rs = meta.getIndexInfo(null, schema, table, true, true)) {
+            while (rs.next()) {
+                String index = rs.getString("INDEX_NAME");
+                String column = rs.getString("COLUMN_NAME");
+                if (index != null && column != null) uniqueIndexes.computeIfAbsent(index, k -> new ArrayList<>()).add(column);
+            }
+        }
+        for (List<String> columns : uniqueIndexes.values()) {
+            if (columns.size() == 1 && isNotNull(meta, schema, table, columns.get(0))) return columns.get(0);
+        }
+        return null;
+    }
+
+    /**
+     * Rows with a NULL key would never match {@code key > ?}, so only NOT NULL unique columns qualify.
+     */
+    private boolean isNotNull(DatabaseMetaData meta, String schema, String table, String column) throws SQLException {
+        try (ResultSet rs = meta.getColumns(null, schema, table, column)) {
+            return rs.next() && rs.getInt("NULLABLE") == DatabaseMetaData.columnNoNulls;
+        }
+    }
+
+    private boolean isSeekable(int jdbcType) {
+        return switch (jdbcType) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT, Types.DECIMAL, Types.NUMERIC,
+                 Types.CHAR, Types.VARCHAR, Types.NCHAR, Types.NVARCHAR -> true;
+            default -> false;
+        };
+    }
+
+    private String quote(String column, String dbProduct) {
+        if (dbProduct.contains("sql server")) return "[" + column + "]";
+        if (dbProduct.contains("mysql") || dbProduct.contains("mariadb")) return "`" + column + "`";
+        if (dbProduct.contains("postgresql") || dbProduct.contains("oracle") || dbProduct.contains("h2")) return "\"" + column + "\"";
+        return column;
+    }
+
+    private String unquote(String table) {
+        return table.replaceAll("[\\[\\]\"`]", "");
+    }
+}
@@ -0,0 +1,575 @@
+package com.maze.DB.Studio.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maze.DB.Studio.model.BackupManifest;
+import com.maze.DB.Studio.model.ConnectionProfile;
+import com.maze.DB.Studio.model.ProfileKey;
+import com.maze.DB.Studio.util.CopyTextFormat;
+import com.maze.DB.Studio.util.BlockChecksumOutputStream;
+import com.maze.DB.Studio.util.GzipPart;
+import com.maze.DB.Studio.util.JdbcStreaming;
+import com.maze.DB.Studio.util.SqlIdentifiers;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Built-in logical backup for JDBC databases, without {@code pg_dump}/{@code mysqldump} on the
+ * machine. Tables are read from the driver's metadata and dumped in parallel, each worker on its
+ * own pooled connection with a streaming cursor. The archive is a zip holding one gzipped
+ * COPY-text file per table and a {@code manifest.json} with every table's definition, row count
+ * and SHA-256.
+ * <p>
+ * On PostgreSQL all workers read the same exported snapshot, so the backup is consistent across
+ * tables. Other databases are read table by table without a shared snapshot.
+ * <p>
+ * Incremental backups dump only the rows of each table whose watermark (a rowversion or
+ * last-modified column, or PostgreSQL's {@code xmin}) is at or above the one recorded by the
+ * previous backup, plus the table's primary keys so deletions can be replayed. Each archive's
+ * manifest names the chain of archives it builds on.
+ */
+@Service
+@RequiredArgsConstructor
+public class LogicalBackupService {
+
+    private static final Set<String> SYSTEM_SCHEMAS = Set.of(
+            "information_schema", "pg_catalog", "pg_toast", "sys", "mysql", "performance_schema");
+    private static final String[] TABLE_TYPES = {"TABLE", "BASE TABLE"}; // H2 2.x reports "BASE TABLE"
+    private static final int PROGRESS_EVERY_ROWS = 1000;
+
+    private final ConnectionPoolManager connectionPools;
+    private final ObjectMapper objectMapper;
+    private final BackupArtifactService artifacts;
+
+    @Value("${dbstudio.backup.parallelism:3}")
+    private int parallelism;
+    @Value("${dbstudio.backup.fetch-size:1000}")
+    private int fetchSize;
+    @Value("${dbstudio.backup.max-chain-length:7}")
+    private int maxChainLength;
+    @Value("${dbstudio.backup.watermark-columns:updated_at,last_modified,modified_at,updated_on,last_updated}")
+    private String watermarkColumns;
+    @Value("${dbstudio.backup.watermark-overlap-ms:300000}")
+    private long watermarkOverlapMs;
+    @Value("${dbstudio.exports.dir:./exports}")
+    private String exportsDir;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Dumps every user table of the profile's database into {@code archive}. The archive is only
+     * created when the dump succeeded. It starts a new chain for incremental backups.
+     */
+    public BackupManifest backup(ConnectionProfile profile, Path archive, JobProgress progress) throws Exception {
+        BackupManifest manifest = backup(profile, archive, null, null, progress);
+        recordLatest(profile, archive);
+        return manifest;
+    }
+
+    /**
+     * Dumps only the rows changed since the latest backup of the profile's database, for tables
+     * that have a watermark and a primary key; other tables are dumped in full. Takes a full backup
+     * instead when there is no earlier backup in the exports folder or its chain is already
+     * {@code max-chain-length} long.
+     */
+    public BackupManifest backupIncremental(ConnectionProfile profile, Path archive, JobProgress progress) throws Exception {
+        Path parentArchive = latestBackup(profile);
+        BackupManifest parent = parentArchive != null ? readManifest(parentArchive) : null;
+        if (parent != null && (parent.chain() == null ? 0 : parent.chain().size()) + 1 >= maxChainLength) {
+            parentArchive = null;
+            parent = null;
+        }
+        BackupManifest manifest = backup(profile, archive, parentArchive, parent, progress);
+        recordLatest(profile, archive);
+        return manifest;
+    }
+
+    private BackupManifest backup(ConnectionProfile profile, Path archive, Path parentArchive, BackupManifest parent,
+                                  JobProgress progress) throws Exception {
+        Path workDir = Files.createTempDirectory(archive.toAbsolutePath().getParent(), ".backup-");
+        try (Connection conn = connectionPools.getConnection(profile)) {
+            DatabaseMetaData md = conn.getMetaData();
+            String dbProduct = md.getDatabaseProductName().toLowerCase();
+            long createdAt = System.currentTimeMillis();
+
+            // The snapshot stays valid while this transaction is open, i.e. until the workers are done
+            String snapshot = null;
+            if (dbProduct.contains("postgresql")) {
+                conn.setAutoCommit(false);
+                conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT pg_export_snapshot()")) {
+                    rs.next();
+                    snapshot = rs.getString(1);
+                }
+            }
+            String databaseWatermark = databaseWatermark(conn, dbProduct);
+
+            Map<String, BackupManifest.Table> previous = new HashMap<>();
+            if (parent != null) {
+                for (BackupManifest.Table t : parent.tables()) previous.put(t.schema() + "." + t.name(), t);
+            }
+            List<TableDump> dumps = new ArrayList<>();
+            for (String[] table : listTables(conn)) {
+                String file = String.format("data/%04d-%s.tsv.gz", dumps.size() + 1, table[1].replaceAll("[^A-Za-z0-9_.-]", "_"));
+                TableDump dump = new TableDump(describe(md, conn.getCatalog(), table[0], table[1], file),
+                        workDir.resolve(dumps.size() + ".part"));
+                dump.watermark = watermarkFor(dump.table, dbProduct, databaseWatermark);
+                dump.since = changedSince(previous.get(table[0] + "." + table[1]), dump.table, dump.watermark);
+                if (dump.since != null) {
+                    dump.keysFile = String.format("keys/%04d-%s.tsv.gz", dumps.size() + 1, table[1].replaceAll("[^A-Za-z0-9_.-]", "_"));
+                    dump.keysPartFile = workDir.resolve(dumps.size() + ".keys.part");
+                }
+                dumps.add(dump);
+            }
+
+            dumpTables(profile, dumps, dbProduct, snapshot, progress);
+            if (snapshot != null) conn.commit();
+
+            List<BackupManifest.Table> written = new ArrayList<>();
+            for (TableDump dump : dumps) {
+                BackupManifest.Table t = dump.table;
+                BackupManifest.Keys keys = dump.keysPart != null
+                        ? new BackupManifest.Keys(dump.keysFile, dump.keyRows, dump.keysPart.sha256()) : null;
+                written.add(new BackupManifest.Table(t.schema(), t.name(), t.file(), dump.rows, dump.part.sha256(),
+                        t.columns(), t.primaryKey(), t.indexes(), t.foreignKeys(),
+                        dump.since != null ? BackupManifest.MODE_CHANGES : BackupManifest.MODE_FULL, dump.watermark, keys));
+            }
+            List<String> chain = new ArrayList<>();
+            if (parent != null) {
+                if (parent.chain() != null) chain.addAll(parent.chain());
+                chain.add(parentArchive.getFileName().toString());
+            }
+            BackupManifest manifest = new BackupManifest(BackupManifest.FORMAT, BackupManifest.VERSION,
+                    md.getDatabaseProductName(), conn.getCatalog(), createdAt, "gzip", written, chain);
+            writeArchive(archive, manifest, dumps);
+            return manifest;
+        } catch (Exception e) {
+            Files.deleteIfExists(archive);
+            Files.deleteIfExists(BackupArtifactService.checksumsFile(archive));
+            throw e;
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    // ---- Chains ----
+
+    /**
+     * The latest backup of the profile's database that is still in the exports folder, or null.
+     */
+    private Path latestBackup(ConnectionProfile profile) {
+        try {
+            Path pointer = latestPointer(profile);
+            if (!Files.exists(pointer)) return null;
+            return artifacts.resolveArtifact(Files.readString(pointer).trim());
+        } catch (IOException | IllegalArgumentException e) {
+            return null; // deleted or unreadable: start a new chain
+        }
+    }
+
+    private void recordLatest(ConnectionProfile profile, Path archive) throws IOException {
+        Path pointer = latestPointer(profile);
+        Files.createDirectories(pointer.getParent());
+        Files.writeString(pointer, archive.getFileName().toString());
+    }
+
+    /**
+     * A small file in the exports folder naming the latest backup of a database, keyed by a hash
+     * of its URL so no connection details end up in file names.
+     */
+    private Path latestPointer(ConnectionProfile profile) {
+        String key = ProfileKey.hashSecret(ProfileKey.of(profile).url()).substring(0, 16);
+        return Paths.get(exportsDir, "backup-chains", key + ".latest");
+    }
+
+    public BackupManifest readManifest(Path archive) throws IOException {
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            ZipEntry entry = zip.getEntry("manifest.json");
+            if (entry == null) throw new IllegalArgumentException("Not a logical backup: " + archive.getFileName());
+            try (InputStream in = zip.getInputStream(entry)) {
+                return objectMapper.readValue(in, BackupManifest.class);
+            }
+        }
+    }
+
+    // ---- Watermarks ----
+
+    /**
+     * The database-wide watermark taken when the backup starts: the lowest rowversion a
+     * transaction still in flight may write on SQL Server, and the oldest transaction id not yet
+     * visible to the snapshot on PostgreSQL. Rows at or above it may be missing from this backup,
+     * so the next one starts there.
+     */
+    private static String databaseWatermark(Connection conn, String dbProduct) throws SQLException {
+        String sql;
+        if (dbProduct.contains("sql server")) sql = "SELECT MIN_ACTIVE_ROWVERSION()";
+        else if (dbProduct.contains("postgresql")) sql = "SELECT txid_snapshot_xmin(txid_current_snapshot())";
+        else return null;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return dbProduct.contains("sql server") ? HexFormat.of().formatHex(rs.getBytes(1)) : String.valueOf(rs.getLong(1));
+        }
+    }
+
+    /**
+     * How changes to the table will be found: a rowversion column, else a last-modified column
+     * named in {@code watermark-columns}, else {@code xmin} on PostgreSQL. The value of a
+     * last-modified column is only known once the table has been read.
+     */
+    private BackupManifest.Watermark watermarkFor(BackupManifest.Table table, String dbProduct, String databaseWatermark) {
+        if (dbProduct.contains("sql server")) {
+            for (BackupManifest.Column column : table.columns()) {
+                String type = column.typeName().toLowerCase();
+                if (type.equals("timestamp") || type.equals("rowversion")) {
+                    return new BackupManifest.Watermark("rowversion", column.name(), databaseWatermark);
+                }
+            }
+        }
+        for (String candidate : watermarkColumns.split(",")) {
+            for (BackupManifest.Column column : table.columns()) {
+                if (column.name().equalsIgnoreCase(candidate.trim())
+                        && (column.jdbcType() == Types.TIMESTAMP || column.jdbcType() == Types.TIMESTAMP_WITH_TIMEZONE)) {
+                    return new BackupManifest.Watermark("timestamp", column.name(), null);
+                }
+            }
+        }
+        if (dbProduct.contains("postgresql")) return new BackupManifest.Watermark("xmin", "xmin", databaseWatermark);
+        return null;
+    }
+
+    /**
+     * The previous backup's watermark when only changes since then need dumping, or null for a
+     * full dump: the table must have a primary key (to apply the changes on restore), the same
+     * columns and the same kind of watermark as before.
+     */
+    private static BackupManifest.Watermark changedSince(BackupManifest.Table previous, BackupManifest.Table table,
+                                                         BackupManifest.Watermark watermark) {
+        if (previous == null || watermark == null || table.primaryKey().isEmpty()) return null;
+        BackupManifest.Watermark since = previous.watermark();
+        if (since == null || since.value() == null || !since.kind().equals(watermark.kind())
+                || !since.column().equals(watermark.column())) return null;
+        if (!previous.columns().equals(table.columns()) || !previous.primaryKey().equals(table.primaryKey())) return null;
+        // xmin is 32 bits: after a wraparound the old value no longer orders transactions
+        if (since.kind().equals("xmin") && Long.parseLong(since.value()) >>> 32 != Long.parseLong(watermark.value()) >>> 32) return null;
+        return since;
+    }
+
+    /**
+     * The condition selecting changed rows, with one parameter bound by {@link #bindSince}.
+     */
+    private static String changedRowsCondition(BackupManifest.Watermark since, String dbProduct) {
+        if (since.kind().equals("xmin")) return "xmin::text::bigint >= ?";
+        return SqlIdentifiers.quote(since.column(), dbProduct) + " >= ?";
+    }
+
+    private void bindSince(PreparedStatement stmt, BackupManifest.Watermark since) throws SQLException {
+        switch (since.kind()) {
+            case "rowversion" -> stmt.setBytes(1, HexFormat.of().parseHex(since.value()));
+            case "xmin" -> stmt.setLong(1, Long.parseLong(since.value()) & 0xFFFFFFFFL);
+            // Rows written by transactions still open when the watermark was read can carry an
+            // earlier time, so the window starts a little before it; re-dumped rows are harmless
+            default -> stmt.setTimestamp(1, new Timestamp(Timestamp.valueOf(since.value()).getTime() - watermarkOverlapMs));
+        }
+    }
+
+    // ---- Metadata ----
+
+    /**
+     * Schema and name of every user table, in a stable order.
+     */
+    private List<String[]> listTables(Connection conn) throws SQLException {
+        List<String[]> tables = new ArrayList<>();
+        try (ResultSet rs = conn.getMetaData().getTables(conn.getCatalog(), null, "%", TABLE_TYPES)) {
+            while (rs.next()) {
+                String schema = rs.getString("TABLE_SCHEM");
+                String name = rs.getString("TABLE_NAME");
+                if (schema != null && (SYSTEM_SCHEMAS.contains(schema.toLowerCase()) || schema.startsWith("pg_temp"))) continue;
+                if (name.toLowerCase().startsWith("dbstudio_stage_")) continue; // left over by staged imports
+                tables.add(new String[]{schema, name});
+            }
+        }
+        tables.sort(Comparator.comparing((String[] t) -> String.valueOf(t[0])).thenComparing(t -> t[1]));
+        return tables;
+    }
+
+    private List<BackupManifest.Column> readColumns(DatabaseMetaData md, String catalog, String schema, String table) throws SQLException {
+        List<BackupManifest.Column> columns = new ArrayList<>();
+        try (ResultSet rs = md.getColumns(catalog, schema, table, "%")) {
+            while (rs.next()) {
+                columns.add(new BackupManifest.Column(
+                        rs.getString("COLUMN_NAME"),
+                        rs.getInt("DATA_TYPE"),
+                        rs.getString("TYPE_NAME"),
+                        rs.getInt("COLUMN_SIZE"),
+                        rs.getInt("DECIMAL_DIGITS"),
+                        rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls,
+                        rs.getString("COLUMN_DEF"),
+                        "YES".equalsIgnoreCase(rs.getString("IS_AUTOINCREMENT"))));
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * The table's columns, primary key, indexes and foreign keys; rows and checksum are filled in
+     * once the data has been dumped.
+     */
+    private BackupManifest.Table describe(DatabaseMetaData md, String catalog, String schema, String table,
+                                          String file) throws SQLException {
+        TreeMap<Short, String> primaryKey = new TreeMap<>();
+        try (ResultSet rs = md.getPrimaryKeys(catalog, schema, table)) {
+            while (rs.next()) primaryKey.put(rs.getShort("KEY_SEQ"), rs.getString("COLUMN_NAME"));
+        }
+
+        Map<String, BackupManifest.Index> indexes = new LinkedHashMap<>();
+        try (ResultSet rs = md.getIndexInfo(catalog, schema, table, false, true)) {
+            while (rs.next()) {
+                String name = rs.getString("INDEX_NAME");
+                String column = rs.getString("COLUMN_NAME");
+                if (name == null || column == null || rs.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic) continue;
+                boolean unique = !rs.getBoolean("NON_UNIQUE");
+                indexes.computeIfAbsent(name, n -> new BackupManifest.Index(n, unique, new ArrayList<>())).columns().add(column);
+            }
+        }
+
+        Map<String, BackupManifest.ForeignKey> foreignKeys = new LinkedHashMap<>();
+        try (ResultSet rs = md.getImportedKeys(catalog, schema, table)) {
+            while (rs.next()) {
+                String refSchema = rs.getString("PKTABLE_SCHEM");
+                String refTable = rs.getString("PKTABLE_NAME");
+                String name = Objects.requireNonNullElse(rs.getString("FK_NAME"), table + "_" + refTable + "_fk");
+                BackupManifest.ForeignKey fk = foreignKeys.computeIfAbsent(name,
+                        n -> new BackupManifest.ForeignKey(n, new ArrayList<>(), refSchema, refTable, new ArrayList<>()));
+                fk.columns().add(rs.getString("FKCOLUMN_NAME"));
+                fk.refColumns().add(rs.getString("PKCOLUMN_NAME"));
+            }
+        }
+
+        return new BackupManifest.Table(schema, table, file, 0, null, readColumns(md, catalog, schema, table),
+                new ArrayList<>(primaryKey.values()), new ArrayList<>(indexes.values()), new ArrayList<>(foreignKeys.values()),
+                null, null, null);
+    }
+
+    // ---- Data ----
+
+    /**
+     * Pooled connections a backup holds at most: one per worker plus the coordinating one, within
+     * {@link ConnectionPoolManager#maxJobConnections()}.
+     */
+    public int connectionsNeeded() {
+        return workerLimit() + 1;
+    }
+
+    private int workerLimit() {
+        return Math.max(1, Math.min(parallelism, connectionPools.maxJobConnections() - 1));
+    }
+
+    /**
+     * Runs up to {@code parallelism} workers (fewer when the pool is small), each holding one
+     * pooled connection and taking the next table from a shared queue, so large and small tables
+     * balance out. The first failure stops the other workers.
+     */
+    private void dumpTables(ConnectionProfile profile, List<TableDump> dumps, String dbProduct, String snapshot,
+                            JobProgress progress) throws Exception {
+        Queue<TableDump> pending = new ConcurrentLinkedQueue<>(dumps);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        int workers = Math.max(1, Math.min(workerLimit(), dumps.size()));
+        CountDownLatch done = new CountDownLatch(workers);
+        for (int i = 0; i < workers; i++) {
+            executor.execute(() -> {
+                try (Connection conn = connectionPools.getConnection(profile)) {
+                    if (snapshot != null) {
+                        conn.setAutoCommit(false);
+                        conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+                        try (Statement stmt = conn.createStatement()) {
+                            stmt.execute("SET TRANSACTION SNAPSHOT '" + snapshot + "'");
+                        }
+                    }
+                    TableDump dump;
+                    while (failure.get() == null && (dump = pending.poll()) != null) {
+                        dumpTable(conn, dump, dbProduct, progress, failure);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            // Cancelled: stop the workers and wait until they let go of their files and connections
+            failure.compareAndSet(null, e);
+            done.await();
+            throw e;
+        }
+        Throwable error = failure.get();
+        if (error instanceof Exception ex) throw ex;
+        if (error != null) throw new IllegalStateException(error);
+    }
+
+    private void dumpTable(Connection conn, TableDump dump, String dbProduct, JobProgress progress,
+                           AtomicReference<Throwable> failure) throws SQLException, IOException {
+        BackupManifest.Table table = dump.table;
+        String quotedTable = SqlIdentifiers.qualified(table.schema(), table.name(), dbProduct);
+        if (dump.watermark != null && dump.watermark.kind().equals("timestamp")) {
+            // Read before the rows, so changes made while dumping are picked up next time
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT MAX(" + SqlIdentifiers.quote(dump.watermark.column(), dbProduct) + ") FROM " + quotedTable)) {
+                rs.next();
+                Timestamp max = rs.getTimestamp(1);
+                dump.watermark = new BackupManifest.Watermark("timestamp", dump.watermark.column(), max == null ? null : max.toString());
+            }
+        }
+
+        String sql = "SELECT " + columnList(table.columns().stream().map(BackupManifest.Column::name).toList(), dbProduct)
+                + " FROM " + quotedTable;
+        if (dump.since != null) sql += " WHERE " + changedRowsCondition(dump.since, dbProduct);
+        dump.part = new GzipPart(dump.partFile, progress::addBytes);
+        dump.rows = writeRows(conn, sql, dump.since, table.columns(), dump.part, progress, failure);
+
+        if (dump.since != null) {
+            // Every key, so the restore can tell which rows were deleted since the last backup
+            List<BackupManifest.Column> keyColumns = table.primaryKey().stream()
+                    .map(k -> table.columns().stream().filter(c -> c.name().equals(k)).findFirst().orElseThrow())
+                    .toList();
+            dump.keysPart = new GzipPart(dump.keysPartFile, progress::addBytes);
+            dump.keyRows = writeRows(conn, "SELECT " + columnList(table.primaryKey(), dbProduct) + " FROM " + quotedTable,
+                    null, keyColumns, dump.keysPart, progress, failure);
+        }
+    }
+
+    /**
+     * Streams the query's rows into the part as COPY text.
+     */
+    private long writeRows(Connection conn, String sql, BackupManifest.Watermark since, List<BackupManifest.Column> columns,
+                           GzipPart target, JobProgress progress, AtomicReference<Throwable> failure) throws SQLException, IOException {
+        long rows = 0;
+        try (GzipPart part = target;
+             Writer out = new BufferedWriter(new OutputStreamWriter(part.stream(), StandardCharsets.UTF_8), 64 * 1024);
+             PreparedStatement stmt = JdbcStreaming.prepareStreamingStatement(conn, sql, fetchSize)) {
+            if (since != null) bindSince(stmt, since);
+            try (ResultSet rs = stmt.executeQuery()) {
+                int columnCount = columns.size();
+                int[] types = columns.stream().mapToInt(BackupManifest.Column::jdbcType).toArray();
+                String[] values = new String[columnCount];
+                StringBuilder line = new StringBuilder(256);
+                while (rs.next()) {
+                    for (int i = 0; i < columnCount; i++) values[i] = toText(rs, i + 1, types[i]);
+                    line.setLength(0);
+                    CopyTextFormat.appendRow(line, values);
+                    out.append(line);
+                    if (++rows % PROGRESS_EVERY_ROWS == 0) {
+                        if (failure.get() != null) throw new CancellationException("Another table failed");
+                        progress.addRows(PROGRESS_EVERY_ROWS);
+                    }
+                }
+            }
+        }
+        progress.addRows(rows % PROGRESS_EVERY_ROWS);
+        return rows;
+    }
+
+    private static String columnList(List<String> columns, String dbProduct) {
+        return columns.stream().map(c -> SqlIdentifiers.quote(c, dbProduct)).reduce((a, b) -> a + ", " + b).orElse("*");
+    }
+
+    /**
+     * A value in the text form PostgreSQL and MySQL accept when loading: binary as {@code \x}
+     * hex, decimals without exponent, dates and timestamps in JDBC escape format.
+     */
+    private static String toText(ResultSet rs, int index, int jdbcType) throws SQLException {
+        switch (jdbcType) {
+            case Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY, Types.BLOB -> {
+                byte[] bytes = rs.getBytes(index);
+                return bytes == null ? null : "\\x" + HexFormat.of().formatHex(bytes);
+            }
+            case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR,
+                 Types.LONGNVARCHAR, Types.CLOB, Types.NCLOB -> {
+                return rs.getString(index);
+            }
+            case Types.NUMERIC, Types.DECIMAL -> {
+                BigDecimal value = rs.getBigDecimal(index);
+                return value == null ? null : value.toPlainString();
+            }
+            case Types.DATE -> {
+                java.sql.Date value = rs.getDate(index);
+                return value == null ? null : value.toString();
+            }
+            case Types.TIMESTAMP -> {
+                Timestamp value = rs.getTimestamp(index);
+                return value == null ? null : value.toString();
+            }
+            default -> {
+                Object value = rs.getObject(index);
+                return value == null ? null : value.toString();
+            }
+        }
+    }
+
+    // ---- Archive ----
+
+    /**
+     * Copies the compressed table files into the archive as they are (stored, not recompressed)
+     * and adds the manifest last.
+     */
+    private void writeArchive(Path archive, BackupManifest manifest, List<TableDump> dumps) throws IOException {
+        BlockChecksumOutputStream checked = artifacts.checksummed(new BufferedOutputStream(Files.newOutputStream(archive), 64 * 1024));
+        try (ZipOutputStream zip = new ZipOutputStream(checked)) {
+            for (TableDump dump : dumps) {
+                dump.part.moveInto(zip, dump.table.file());
+                if (dump.keysPart != null) dump.keysPart.moveInto(zip, dump.keysFile);
+            }
+            zip.putNextEntry(new ZipEntry("manifest.json"));
+            zip.write(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(manifest));
+            zip.closeEntry();
+        }
+        artifacts.writeChecksums(archive, "zip", checked, -1, null);
+    }
+
+    // ---- Helpers ----
+
+    private static void deleteRecursively(Path dir) {
+        try (var paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static class TableDump {
+        final BackupManifest.Table table;
+        final Path partFile;
+        BackupManifest.Watermark since;
+        String keysFile;
+        Path keysPartFile;
+        // Written by the worker that dumped the table, read after all workers finished
+        BackupManifest.Watermark watermark;
+        GzipPart part;
+        long rows;
+        GzipPart keysPart;
+        long keyRows;
+
+        TableDump(BackupManifest.Table table, Path partFile) {
+            this.table = table;
+            this.partFile = partFile;
+        }
+    }
+}
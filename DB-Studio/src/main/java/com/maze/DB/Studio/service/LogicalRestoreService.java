@@ -0,0 +1,704 @@
+package com.maze.DB.Studio.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maze.DB.Studio.model.BackupManifest;
+import com.maze.DB.Studio.model.ConnectionProfile;
+import com.maze.DB.Studio.util.CopyTextFormat;
+import com.maze.DB.Studio.util.CountingInputStream;
+import com.maze.DB.Studio.util.SqlIdentifiers;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Restores a {@link LogicalBackupService} archive into the connected database (its current
+ * schema), replacing tables of the same name. Tables are created without keys, loaded in
+ * parallel with the fastest loader of the dialect (COPY of the archived text as-is on
+ * PostgreSQL, the {@link BulkLoaders} otherwise), and only then get their primary keys and
+ * indexes; foreign keys are added once every table is loaded. Every data file's row count and
+ * SHA-256 are checked against the manifest before anything in the database is touched, so a
+ * damaged archive leaves the existing tables alone, and again as each table is loaded.
+ * <p>
+ * An incremental backup is restored from the last full dump of each table in its chain, then
+ * the changes of every later archive are applied in order.
+ * <p>
+ * Column types are copied verbatim when the backup comes from the same kind of database and
+ * mapped from their JDBC types otherwise.
+ */
+@Service
+@RequiredArgsConstructor
+public class LogicalRestoreService {
+
+    private static final String MANIFEST = "manifest.json";
+
+    private final ConnectionPoolManager connectionPools;
+    private final ObjectMapper objectMapper;
+    private final BackupArtifactService artifacts;
+
+    @Value("${dbstudio.restore.parallelism:3}")
+    private int parallelism;
+    @Value("${dbstudio.import.batch-size:500}")
+    private int batchSize;
+    @Value("${dbstudio.import.native-bulk-load:true}")
+    private boolean nativeBulkLoad;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * True when the file is a logical backup archive rather than a native dump.
+     */
+    public boolean isLogicalBackup(File file) {
+        try (ZipFile zip = new ZipFile(file)) {
+            return zip.getEntry(MANIFEST) != null;
+        } catch (IOException e) {
+            return false; // not a zip
+        }
+    }
+
+    /**
+     * Restores the archive; an incremental backup is restored together with the earlier archives
+     * of its chain, which must still be in the exports folder.
+     */
+    public BackupManifest restore(ConnectionProfile profile, Path archive, JobProgress progress) throws Exception {
+        List<ZipFile> opened = new ArrayList<>();
+        try (Connection conn = connectionPools.getConnection(profile)) {
+            ZipFile zip = new ZipFile(archive.toFile());
+            opened.add(zip);
+            BackupManifest manifest = readManifest(zip);
+            List<Archive> archives = openChain(manifest, opened);
+            archives.add(new Archive(archive.getFileName().toString(), zip, manifest));
+            List<TablePlan> plans = new ArrayList<>();
+            for (BackupManifest.Table table : manifest.tables()) plans.add(plan(table, archives));
+
+            String dbProduct = conn.getMetaData().getDatabaseProductName().toLowerCase();
+            boolean sameProduct = conn.getMetaData().getDatabaseProductName().equalsIgnoreCase(manifest.product());
+
+            long totalBytes = 0;
+            for (TablePlan plan : plans) {
+                for (Source source : plan.sources()) {
+                    totalBytes += entry(source.zip(), source.table()).getCompressedSize();
+                    if (source.table().isChanges()) totalBytes += entry(source.zip(), source.table().keys().file()).getCompressedSize();
+                }
+            }
+            progress.setTotalBytes(2 * totalBytes); // read once to verify, once to load
+
+            verifyArchives(plans, progress);
+            try (Statement stmt = conn.createStatement()) {
+                dropExisting(conn, stmt, manifest, dbProduct);
+                for (BackupManifest.Table table : manifest.tables()) {
+                    stmt.execute(createTableSql(table, dbProduct, sameProduct));
+                }
+            }
+
+            loadTables(profile, plans, dbProduct, sameProduct, progress);
+
+            Set<String> restored = manifest.tables().stream().map(t -> t.name().toLowerCase()).collect(Collectors.toSet());
+            try (Statement stmt = conn.createStatement()) {
+                for (BackupManifest.Table table : manifest.tables()) {
+                    for (BackupManifest.ForeignKey fk : table.foreignKeys()) {
+                        if (!restored.contains(fk.refTable().toLowerCase())) continue; // points outside the backup
+                        stmt.execute("ALTER TABLE " + SqlIdentifiers.quote(table.name(), dbProduct)
+                                + " ADD CONSTRAINT " + SqlIdentifiers.quote(fk.name(), dbProduct)
+                                + " FOREIGN KEY (" + columnList(fk.columns(), dbProduct) + ")"
+                                + " REFERENCES " + SqlIdentifiers.quote(fk.refTable(), dbProduct)
+                                + " (" + columnList(fk.refColumns(), dbProduct) + ")");
+                    }
+                }
+            }
+            return manifest;
+        } finally {
+            for (ZipFile zip : opened) zip.close();
+        }
+    }
+
+    private BackupManifest readManifest(ZipFile zip) throws IOException {
+        ZipEntry entry = zip.getEntry(MANIFEST);
+        if (entry == null) throw new IllegalArgumentException("Not a logical backup: " + MANIFEST + " is missing");
+        BackupManifest manifest;
+        try (InputStream in = zip.getInputStream(entry)) {
+            manifest = objectMapper.readValue(in, BackupManifest.class);
+        }
+        if (!BackupManifest.FORMAT.equals(manifest.format()) || manifest.version() > BackupManifest.VERSION) {
+            throw new IllegalArgumentException("Unsupported backup format: " + manifest.format() + " version " + manifest.version());
+        }
+        Set<String> names = new HashSet<>();
+        for (BackupManifest.Table table : manifest.tables()) {
+            // Every table is restored into the current schema, where names must be unique
+            if (!names.add(table.name().toLowerCase())) {
+                throw new IllegalArgumentException("The backup has more than one table named " + table.name());
+            }
+        }
+        return manifest;
+    }
+
+    private static ZipEntry entry(ZipFile zip, BackupManifest.Table table) {
+        return entry(zip, table.file());
+    }
+
+    private static ZipEntry entry(ZipFile zip, String file) {
+        ZipEntry entry = zip.getEntry(file);
+        if (entry == null) throw new IllegalArgumentException("Backup is incomplete: " + file + " is missing");
+        return entry;
+    }
+
+    // ---- Chains ----
+
+    private record Archive(String name, ZipFile zip, BackupManifest manifest) {
+    }
+
+    /**
+     * Where a table's rows come from: the archive holding its last full dump, then every later
+     * archive of the chain with its changes, in order.
+     */
+    private record TablePlan(BackupManifest.Table table, List<Source> sources) {
+    }
+
+    private record Source(ZipFile zip, BackupManifest.Table table) {
+    }
+
+    /**
+     * Opens the earlier archives an incremental backup builds on, oldest first, checking that
+     * each belongs to the same chain.
+     */
+    private List<Archive> openChain(BackupManifest manifest, List<ZipFile> opened) throws IOException {
+        List<Archive> archives = new ArrayList<>();
+        List<String> chain = manifest.chain() == null ? List.of() : manifest.chain();
+        for (int i = 0; i < chain.size(); i++) {
+            Path file;
+            try {
+                file = artifacts.resolveArtifact(chain.get(i));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("This incremental backup builds on " + chain.get(i)
+                        + ", which is no longer in the exports folder");
+            }
+            ZipFile zip = new ZipFile(file.toFile());
+            opened.add(zip);
+            BackupManifest earlier = readManifest(zip);
+            List<String> earlierChain = earlier.chain() == null ? List.of() : earlier.chain();
+            if (!earlierChain.equals(chain.subList(0, i)) || !Objects.equals(earlier.database(), manifest.database())) {
+                throw new IllegalArgumentException(chain.get(i) + " is not part of this backup's chain");
+            }
+            archives.add(new Archive(chain.get(i), zip, earlier));
+        }
+        return archives;
+    }
+
+    private static TablePlan plan(BackupManifest.Table table, List<Archive> archives) {
+        LinkedList<Source> sources = new LinkedList<>();
+        for (int i = archives.size() - 1; i >= 0; i--) {
+            Archive archive = archives.get(i);
+            BackupManifest.Table dumped = archive.manifest().tables().stream()
+                    .filter(t -> Objects.equals(t.schema(), table.schema()) && t.name().equalsIgnoreCase(table.name()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(archive.name() + " has no data for table " + table.name()));
+            sources.addFirst(new Source(archive.zip(), dumped));
+            if (!dumped.isChanges()) return new TablePlan(table, sources);
+        }
+        throw new IllegalArgumentException("The backup chain has no full dump of table " + table.name());
+    }
+
+    // ---- Verification ----
+
+    /**
+     * Reads every data and key file the restore will use, on up to {@code parallelism} threads,
+     * and checks its row count and SHA-256 against the manifest.
+     *
+     * @throws IllegalStateException naming the first file that does not match
+     */
+    private void verifyArchives(List<TablePlan> plans, JobProgress progress) throws Exception {
+        List<Callable<Void>> checks = new ArrayList<>();
+        for (TablePlan plan : plans) {
+            for (Source source : plan.sources()) {
+                BackupManifest.Table table = source.table();
+                checks.add(() -> checkEntry(source.zip(), table.file(), table.rows(), table.sha256(), progress));
+                if (table.isChanges()) {
+                    BackupManifest.Keys keys = table.keys();
+                    checks.add(() -> checkEntry(source.zip(), keys.file(), keys.rows(), keys.sha256(), progress));
+                }
+            }
+        }
+        try (ExecutorService pool = Executors.newFixedThreadPool(workerLimit(), Thread.ofVirtual().factory())) {
+            for (Future<Void> result : pool.invokeAll(checks)) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception cause) throw cause;
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Data files hold one row per line of COPY text, so rows are counted as line ends.
+     */
+    private static Void checkEntry(ZipFile zip, String file, long rows, String sha256, JobProgress progress) {
+        String archive = Path.of(zip.getName()).getFileName().toString();
+        MessageDigest digest = sha256();
+        long lines = 0;
+        try (InputStream in = new DigestInputStream(new GZIPInputStream(
+                new CountingInputStream(zip.getInputStream(entry(zip, file)), progress::addBytes), 64 * 1024), digest)) {
+            byte[] buffer = new byte[64 * 1024];
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                for (int i = 0; i < n; i++) {
+                    if (buffer[i] == '\n') lines++;
+                }
+            }
+        } catch (IOException e) { // e.g. a truncated or damaged entry
+            throw new IllegalStateException(file + " in " + archive + " cannot be read (" + e.getMessage()
+                    + "); the archive may be corrupt. Nothing was restored.", e);
+        }
+        String checksum = HexFormat.of().formatHex(digest.digest());
+        if (lines != rows || !checksum.equals(sha256)) {
+            throw new IllegalStateException(file + " in " + archive + " does not match the backup manifest ("
+                    + lines + " of " + rows + " rows, checksum " + (checksum.equals(sha256) ? "ok" : "mismatch")
+                    + "); the archive may be corrupt. Nothing was restored.");
+        }
+        return null;
+    }
+
+    // ---- Schema ----
+
+    /**
+     * Drops the tables about to be restored, after dropping foreign keys from other tables that
+     * reference them.
+     */
+    private void dropExisting(Connection conn, Statement stmt, BackupManifest manifest, String dbProduct) throws SQLException {
+        DatabaseMetaData md = conn.getMetaData();
+        List<String> existing = new ArrayList<>();
+        for (BackupManifest.Table table : manifest.tables()) {
+            String name = findTable(md, conn.getCatalog(), conn.getSchema(), table.name());
+            if (name != null) existing.add(name);
+        }
+        Map<String, Set<String>> referencingKeys = new LinkedHashMap<>();
+        for (String name : existing) {
+            try (ResultSet rs = md.getExportedKeys(conn.getCatalog(), conn.getSchema(), name)) {
+                while (rs.next()) {
+                    String fkName = rs.getString("FK_NAME");
+                    if (fkName != null) referencingKeys.computeIfAbsent(rs.getString("FKTABLE_NAME"), t -> new LinkedHashSet<>()).add(fkName);
+                }
+            }
+        }
+        boolean mysql = dbProduct.contains("mysql") || dbProduct.contains("mariadb");
+        for (Map.Entry<String, Set<String>> keys : referencingKeys.entrySet()) {
+            for (String fkName : keys.getValue()) {
+                stmt.execute("ALTER TABLE " + SqlIdentifiers.quote(keys.getKey(), dbProduct)
+                        + (mysql ? " DROP FOREIGN KEY " : " DROP CONSTRAINT ") + SqlIdentifiers.quote(fkName, dbProduct));
+            }
+        }
+        for (String name : existing) {
+            stmt.execute("DROP TABLE " + SqlIdentifiers.quote(name, dbProduct));
+        }
+    }
+
+    /**
+     * The stored name of a table in the current schema, matched case-insensitively, or null.
+     */
+    private static String findTable(DatabaseMetaData md, String catalog, String schema, String name) throws SQLException {
+        for (String candidate : new LinkedHashSet<>(List.of(name, name.toUpperCase(), name.toLowerCase()))) {
+            try (ResultSet rs = md.getTables(catalog, schema, candidate, null)) {
+                while (rs.next()) {
+                    String type = rs.getString("TABLE_TYPE");
+                    if ("TABLE".equals(type) || "BASE TABLE".equals(type)) return rs.getString("TABLE_NAME");
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Columns only: keys and indexes are added after the load, which is much faster than
+     * maintaining them row by row. MySQL is the exception for auto-increment columns, which
+     * must be a key from the start.
+     */
+    private static String createTableSql(BackupManifest.Table table, String dbProduct, boolean sameProduct) {
+        boolean mysql = dbProduct.contains("mysql") || dbProduct.contains("mariadb");
+        StringJoiner columns = new StringJoiner(", ");
+        boolean autoIncrement = false;
+        for (BackupManifest.Column column : table.columns()) {
+            StringBuilder sb = new StringBuilder(SqlIdentifiers.quote(column.name(), dbProduct)).append(' ');
+            String type = sameProduct ? sameProductType(column, dbProduct) : portableType(column, dbProduct);
+            sb.append(type);
+            if (column.autoIncrement()) {
+                autoIncrement = true;
+                if (dbProduct.contains("sql server")) sb.append(" IDENTITY(1,1)");
+                else if (mysql) sb.append(" AUTO_INCREMENT");
+                else if (!type.toLowerCase().endsWith("serial")) sb.append(" GENERATED BY DEFAULT AS IDENTITY");
+            } else if (sameProduct && column.defaultValue() != null) {
+                sb.append(" DEFAULT ").append(column.defaultValue());
+            }
+            if (!column.nullable()) sb.append(" NOT NULL");
+            columns.add(sb);
+        }
+        if (mysql && autoIncrement && !table.primaryKey().isEmpty()) {
+            columns.add("PRIMARY KEY (" + columnList(table.primaryKey(), dbProduct) + ")");
+        }
+        return "CREATE TABLE " + SqlIdentifiers.quote(table.name(), dbProduct) + " (" + columns + ")";
+    }
+
+    /**
+     * The source type name with its length or precision; identity markers are added separately.
+     */
+    private static String sameProductType(BackupManifest.Column column, String dbProduct) {
+        String type = column.typeName().replaceAll("(?i)\\s+identity$", "");
+        String lower = type.toLowerCase();
+        if (dbProduct.contains("sql server") && (lower.equals("timestamp") || lower.equals("rowversion"))) {
+            return "binary(8)"; // the server fills rowversion columns itself; keep the backed-up values
+        }
+        int size = column.size();
+        if ((lower.contains("char") || lower.contains("binary")) && size > 0 && !type.contains("(")) {
+            if (dbProduct.contains("sql server") && size > 8000) return type + "(max)";
+            if (size < 1_000_000) return type + "(" + size + ")";
+        } else if ((lower.contains("decimal") || lower.contains("numeric")) && size > 0 && size <= 1000 && !type.contains("(")) {
+            return type + "(" + size + "," + column.scale() + ")";
+        }
+        return type;
+    }
+
+    /**
+     * A type of the target dialect for a column that came from a different kind of database.
+     */
+    private static String portableType(BackupManifest.Column column, String dbProduct) {
+        boolean sqlServer = dbProduct.contains("sql server");
+        boolean mysql = dbProduct.contains("mysql") || dbProduct.contains("mariadb");
+        boolean postgres = dbProduct.contains("postgresql");
+        int size = column.size();
+        boolean bounded = size > 0 && size <= (sqlServer ? 4000 : 65535 / 4);
+        return switch (column.jdbcType()) {
+            case Types.BIT, Types.BOOLEAN -> sqlServer ? "bit" : "boolean";
+            case Types.TINYINT, Types.SMALLINT -> "smallint";
+            case Types.INTEGER -> "integer";
+            case Types.BIGINT -> "bigint";
+            case Types.REAL, Types.FLOAT, Types.DOUBLE -> sqlServer ? "float" : mysql ? "double" : "double precision";
+            case Types.NUMERIC, Types.DECIMAL -> size > 0 && size <= 38 ? "decimal(" + size + "," + column.scale() + ")"
+                    : sqlServer || mysql ? "decimal(38,10)" : "numeric";
+            case Types.CHAR, Types.NCHAR -> bounded ? (sqlServer ? "nchar(" : "char(") + size + ")" : portableText(dbProduct);
+            case Types.VARCHAR, Types.NVARCHAR -> bounded ? (sqlServer ? "nvarchar(" : "varchar(") + size + ")" : portableText(dbProduct);
+            case Types.LONGVARCHAR, Types.LONGNVARCHAR, Types.CLOB, Types.NCLOB -> portableText(dbProduct);
+            case Types.DATE -> "date";
+            case Types.TIME, Types.TIME_WITH_TIMEZONE -> "time";
+            case Types.TIMESTAMP -> sqlServer ? "datetime2" : mysql ? "datetime(6)" : "timestamp";
+            case Types.TIMESTAMP_WITH_TIMEZONE -> sqlServer ? "datetimeoffset" : mysql ? "datetime(6)" : "timestamp with time zone";
+            case Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY, Types.BLOB ->
+                    postgres ? "bytea" : sqlServer ? "varbinary(max)" : mysql ? "longblob" : "varbinary";
+            default -> portableText(dbProduct);
+        };
+    }
+
+    private static String portableText(String dbProduct) {
+        if (dbProduct.contains("sql server")) return "nvarchar(max)";
+        if (dbProduct.contains("mysql") || dbProduct.contains("mariadb")) return "longtext";
+        if (dbProduct.contains("postgresql")) return "text";
+        return "varchar";
+    }
+
+    private static String columnList(List<String> columns, String dbProduct) {
+        return columns.stream().map(c -> SqlIdentifiers.quote(c, dbProduct)).collect(Collectors.joining(", "));
+    }
+
+    // ---- Data ----
+
+    /**
+     * Pooled connections a restore holds at most: one per worker plus the coordinating one, within
+     * {@link ConnectionPoolManager#maxJobConnections()}.
+     */
+    public int connectionsNeeded() {
+        return workerLimit() + 1;
+    }
+
+    private int workerLimit() {
+        return Math.max(1, Math.min(parallelism, connectionPools.maxJobConnections() - 1));
+    }
+
+    /**
+     * Runs up to {@code parallelism} workers (fewer when the pool is small), each holding one
+     * pooled connection and taking the next table from a shared queue. The first failure stops
+     * the other workers.
+     */
+    private void loadTables(ConnectionProfile profile, List<TablePlan> plans, String dbProduct, boolean sameProduct,
+                            JobProgress progress) throws Exception {
+        Queue<TablePlan> pending = new ConcurrentLinkedQueue<>(plans);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        int workers = Math.max(1, Math.min(workerLimit(), plans.size()));
+        CountDownLatch done = new CountDownLatch(workers);
+        for (int i = 0; i < workers; i++) {
+            executor.execute(() -> {
+                try (Connection conn = connectionPools.getConnection(profile)) {
+                    TablePlan plan;
+                    while (failure.get() == null && (plan = pending.poll()) != null) {
+                        Source full = plan.sources().getFirst();
+                        loadTable(conn, full.zip(), full.table(), dbProduct, progress, failure);
+                        createKeys(conn, plan.table(), dbProduct);
+                        applyChanges(conn, plan, dbProduct, sameProduct, progress, failure);
+                        restartIdentities(conn, plan.table(), dbProduct);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            // Cancelled: stop the workers and wait until they let go of the archive and connections
+            failure.compareAndSet(null, e);
+            done.await();
+            throw e;
+        }
+        Throwable error = failure.get();
+        if (error instanceof Exception ex) throw ex;
+        if (error != null) throw new IllegalStateException(error);
+    }
+
+    /**
+     * Loads one table in a single transaction that is only committed when the data matched the
+     * manifest's row count and checksum.
+     */
+    private void loadTable(Connection conn, ZipFile zip, BackupManifest.Table table, String dbProduct,
+                           JobProgress progress, AtomicReference<Throwable> failure) throws Exception {
+        MessageDigest sha256 = sha256();
+        String quotedTable = SqlIdentifiers.quote(table.name(), dbProduct);
+        List<String> columns = table.columns().stream().map(BackupManifest.Column::name).toList();
+        conn.setAutoCommit(false);
+        try (InputStream in = new DigestInputStream(new GZIPInputStream(
+                new CountingInputStream(zip.getInputStream(entry(zip, table)), progress::addBytes), 64 * 1024), sha256)) {
+            long rows;
+            if (nativeBulkLoad && dbProduct.contains("postgresql") && conn.isWrapperFor(PGConnection.class)) {
+                // The archive already holds COPY text: stream it to the server without parsing
+                rows = conn.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn("COPY " + quotedTable + " (" + columnList(columns, dbProduct) + ") FROM STDIN", in);
+                progress.addRows(rows);
+            } else {
+                InsertPlan plan = InsertPlan.resolve(conn, quotedTable, columns);
+                // Only tables with an identity column may ask for IDENTITY_INSERT on SQL Server
+                boolean keepIdentity = table.columns().stream().anyMatch(BackupManifest.Column::autoIncrement);
+                BulkLoaders.Loader loader = BulkLoaders.forConnection(conn, plan, nativeBulkLoad, keepIdentity);
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+                rows = loader.load(new LineBatchSource(reader, columns.size(), progress, failure));
+            }
+            in.transferTo(OutputStream.nullOutputStream()); // a loader may stop before the end of the stream
+
+            String checksum = HexFormat.of().formatHex(sha256.digest());
+            if (rows != table.rows() || !checksum.equals(table.sha256())) {
+                throw new IllegalStateException("Table " + table.name() + " does not match the backup manifest (" + rows
+                        + " of " + table.rows() + " rows, checksum " + (checksum.equals(table.sha256()) ? "ok" : "mismatch")
+                        + "); the archive may be corrupt");
+            }
+            conn.commit();
+        } catch (Exception e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Primary key and indexes of a loaded table.
+     */
+    private void createKeys(Connection conn, BackupManifest.Table table, String dbProduct) throws SQLException {
+        String quotedTable = SqlIdentifiers.quote(table.name(), dbProduct);
+        boolean mysql = dbProduct.contains("mysql") || dbProduct.contains("mariadb");
+        boolean autoIncrement = table.columns().stream().anyMatch(BackupManifest.Column::autoIncrement);
+        try (Statement stmt = conn.createStatement()) {
+            if (!table.primaryKey().isEmpty() && !(mysql && autoIncrement)) {
+                stmt.execute("ALTER TABLE " + quotedTable + " ADD PRIMARY KEY (" + columnList(table.primaryKey(), dbProduct) + ")");
+            }
+            for (BackupManifest.Index index : table.indexes()) {
+                if (index.unique() && index.columns().equals(table.primaryKey())) continue; // the primary key's own index
+                stmt.execute("CREATE " + (index.unique() ? "UNIQUE " : "") + "INDEX " + SqlIdentifiers.quote(index.name(), dbProduct)
+                        + " ON " + quotedTable + " (" + columnList(index.columns(), dbProduct) + ")");
+            }
+        }
+    }
+
+    private void restartIdentities(Connection conn, BackupManifest.Table table, String dbProduct) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (BackupManifest.Column column : table.columns()) {
+                if (column.autoIncrement()) restartIdentity(stmt, SqlIdentifiers.quote(table.name(), dbProduct), column.name(), dbProduct);
+            }
+        }
+    }
+
+    /**
+     * Replays the incremental backups of a table: each one's changed rows replace the rows with
+     * the same key, then rows missing from the latest key list are deleted. Both go through a
+     * staging table loaded (and verified) like any other table, so the work is a set-based join
+     * in the database.
+     */
+    private void applyChanges(Connection conn, TablePlan plan, String dbProduct, boolean sameProduct,
+                              JobProgress progress, AtomicReference<Throwable> failure) throws Exception {
+        List<Source> changes = plan.sources().subList(1, plan.sources().size());
+        if (changes.isEmpty()) return;
+        BackupManifest.Table table = plan.table();
+        String quotedTable = SqlIdentifiers.quote(table.name(), dbProduct);
+        String columns = columnList(table.columns().stream().map(BackupManifest.Column::name).toList(), dbProduct);
+        boolean identityInsert = dbProduct.contains("sql server") && table.columns().stream().anyMatch(BackupManifest.Column::autoIncrement);
+
+        for (Source change : changes) {
+            BackupManifest.Table rows = change.table();
+            String stage = stageTable(conn, change.zip(), table, table.columns(), rows.file(), rows.rows(), rows.sha256(),
+                    dbProduct, sameProduct, progress, failure);
+            String quotedStage = SqlIdentifiers.quote(stage, dbProduct);
+            try (Statement stmt = conn.createStatement()) {
+                conn.setAutoCommit(false);
+                stmt.executeUpdate("DELETE FROM " + quotedTable + " WHERE EXISTS (SELECT 1 FROM " + quotedStage
+                        + " WHERE " + keyJoin(table.primaryKey(), quotedStage, quotedTable, dbProduct) + ")");
+                if (identityInsert) stmt.execute("SET IDENTITY_INSERT " + quotedTable + " ON");
+                try {
+                    stmt.executeUpdate("INSERT INTO " + quotedTable + " (" + columns + ") SELECT " + columns + " FROM " + quotedStage);
+                } finally {
+                    if (identityInsert) stmt.execute("SET IDENTITY_INSERT " + quotedTable + " OFF");
+                }
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+                dropStage(conn, quotedStage);
+            }
+        }
+
+        BackupManifest.Keys keys = changes.getLast().table().keys();
+        List<BackupManifest.Column> keyColumns = table.primaryKey().stream()
+                .map(k -> table.columns().stream().filter(c -> c.name().equals(k)).findFirst().orElseThrow())
+                .toList();
+        String stage = stageTable(conn, changes.getLast().zip(), table, keyColumns, keys.file(), keys.rows(), keys.sha256(),
+                dbProduct, sameProduct, progress, failure);
+        String quotedStage = SqlIdentifiers.quote(stage, dbProduct);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM " + quotedTable + " WHERE NOT EXISTS (SELECT 1 FROM " + quotedStage
+                    + " WHERE " + keyJoin(table.primaryKey(), quotedStage, quotedTable, dbProduct) + ")");
+        } finally {
+            dropStage(conn, quotedStage);
+        }
+    }
+
+    /**
+     * Creates a keyed staging table with the given columns and loads an archived file into it.
+     * Returns its name.
+     */
+    private String stageTable(Connection conn, ZipFile zip, BackupManifest.Table table, List<BackupManifest.Column> columns,
+                              String file, long rows, String sha256, String dbProduct, boolean sameProduct,
+                              JobProgress progress, AtomicReference<Throwable> failure) throws Exception {
+        String stage = "dbstudio_stage_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        List<BackupManifest.Column> plain = columns.stream()
+                .map(c -> new BackupManifest.Column(c.name(), c.jdbcType(), c.typeName().replaceAll("(?i)^(small|big)?serial$", "$1int"),
+                        c.size(), c.scale(), c.nullable(), null, false))
+                .toList();
+        BackupManifest.Table staged = new BackupManifest.Table(null, stage, file, rows, sha256, plain, table.primaryKey(),
+                List.of(), List.of(), BackupManifest.MODE_FULL, null, null);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(createTableSql(staged, dbProduct, sameProduct));
+        }
+        try {
+            loadTable(conn, zip, staged, dbProduct, progress, failure);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ALTER TABLE " + SqlIdentifiers.quote(stage, dbProduct) + " ADD PRIMARY KEY (" + columnList(table.primaryKey(), dbProduct) + ")");
+            }
+        } catch (Exception e) {
+            dropStage(conn, SqlIdentifiers.quote(stage, dbProduct));
+            throw e;
+        }
+        return stage;
+    }
+
+    private static void dropStage(Connection conn, String quotedStage) {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE " + quotedStage);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static String keyJoin(List<String> key, String left, String right, String dbProduct) {
+        return key.stream()
+                .map(c -> left + "." + SqlIdentifiers.quote(c, dbProduct) + " = " + right + "." + SqlIdentifiers.quote(c, dbProduct))
+                .collect(Collectors.joining(" AND "));
+    }
+
+    /**
+     * Moves the identity counter past the restored values. SQL Server and MySQL do this by
+     * themselves when explicit values are inserted.
+     */
+    private static void restartIdentity(Statement stmt, String quotedTable, String column, String dbProduct) throws SQLException {
+        String quotedColumn = SqlIdentifiers.quote(column, dbProduct);
+        if (dbProduct.contains("postgresql")) {
+            stmt.execute("SELECT setval(pg_get_serial_sequence('" + quotedTable.replace("'", "''") + "', '" + column.replace("'", "''")
+                    + "'), COALESCE(MAX(" + quotedColumn + "), 0) + 1, false) FROM " + quotedTable);
+        } else if (dbProduct.contains("h2")) {
+            long next;
+            try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(" + quotedColumn + "), 0) + 1 FROM " + quotedTable)) {
+                rs.next();
+                next = rs.getLong(1);
+            }
+            stmt.execute("ALTER TABLE " + quotedTable + " ALTER COLUMN " + quotedColumn + " RESTART WITH " + next);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads batches of archived rows for the bulk loaders, keeping the values as text for
+     * {@link InsertPlan} to convert to the target column types.
+     */
+    private class LineBatchSource implements BulkLoaders.BatchSource {
+        private final BufferedReader reader;
+        private final int columnCount;
+        private final JobProgress progress;
+        private final AtomicReference<Throwable> failure;
+        private int rowNumber;
+        private int seq;
+
+        LineBatchSource(BufferedReader reader, int columnCount, JobProgress progress, AtomicReference<Throwable> failure) {
+            this.reader = reader;
+            this.columnCount = columnCount;
+            this.progress = progress;
+            this.failure = failure;
+        }
+
+        @Override
+        public ImportPipeline.Batch next() throws InterruptedException {
+            if (failure.get() != null) throw new CancellationException("Another table failed");
+            List<List<Object>> rows = new ArrayList<>(batchSize);
+            int[] rowNumbers = new int[batchSize];
+            try {
+                String line;
+                while (rows.size() < batchSize && (line = reader.readLine()) != null) {
+                    rowNumbers[rows.size()] = ++rowNumber;
+                    rows.add(Arrays.asList((Object[]) CopyTextFormat.parseRow(line, columnCount)));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (rows.isEmpty()) return null;
+            progress.addRows(rows.size());
+            return new ImportPipeline.Batch(seq++, Arrays.copyOf(rowNumbers, rows.size()), rows);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.maze.DB.Studio.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs independent metadata lookups (tables, views, procedures, ...) concurrently on virtual
+ * threads so a page waits for the slowest lookup instead of the sum of all of them.
+ * Lookups that fail or miss the per-request deadline are reported instead of failing the page.
+ */
+@Component
+public class MetadataLoader {
+
+    @Value("${dbstudio.metadata.deadline-ms:15000}")
+    private long deadlineMs;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Runs every lookup concurrently and waits until all finish or the deadline passes.
+     * Keys are preserved so the results can be put straight into the model.
+     */
+    public Results load(Map<String, Callable<?>> lookups) {
+        Map<String, Future<?>> futures = new LinkedHashMap<>();
+        lookups.forEach((name, lookup) -> futures.put(name, executor.submit(lookup)));
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+        Results results = new Results();
+        for (Map.Entry<String, Future<?>> entry : futures.entrySet()) {
+            Future<?> future = entry.getValue();
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                results.values.put(entry.getKey(), future.get(remaining, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                results.timedOut.add(entry.getKey());
+            } catch (ExecutionException e) {
+                results.failures.put(entry.getKey(), e.getCause() instanceof Exception ex ? ex : e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.values().forEach(f -> f.cancel(true));
+                results.timedOut.add(entry.getKey());
+                break;
+            }
+        }
+        return results;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public static class Results {
+        private final Map<String, Object> values = new LinkedHashMap<>();
+        private final Map<String, Exception> failures = new LinkedHashMap<>();
+        private final List<String> timedOut = new ArrayList<>();
+
+        /**
+         * Successfully loaded values, by lookup name.
+         */
+        public Map<String, Object> values() {
+            return values;
+        }
+
+        public Exception failure(String name) {
+            return failures.get(name);
+        }
+
+        public boolean timedOut(String name) {
+            return timedOut.contains(name);
+        }
+
+        /**
+         * A short user-facing note listing the lookups that did not complete, or null when all did.
+         */
+        public String partialResultsWarning() {
+            List<String> missing = new ArrayList<>(failures.keySet());
+            missing.addAll(timedOut);
+            if (missing.isEmpty()) return null;
+            return "Some metadata could not be loaded: " + String.join(", ", missing) + ".";
+        }
+    }
+}
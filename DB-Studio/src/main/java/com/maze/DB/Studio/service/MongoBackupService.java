@@ -0,0 +1,388 @@
+package com.maze.DB.Studio.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maze.DB.Studio.model.ConnectionProfile;
+import com.maze.DB.Studio.model.MongoBackupManifest;
+import com.maze.DB.Studio.util.CountingInputStream;
+import com.maze.DB.Studio.util.BlockChecksumOutputStream;
+import com.maze.DB.Studio.util.GzipPart;
+import com.mongodb.ConnectionString;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.InsertOneModel;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Backs up and restores a MongoDB database through the driver, without {@code mongodump},
+ * {@code mongorestore} or a container on the machine. Collections are dumped in parallel as raw
+ * BSON (documents are copied byte for byte, never decoded) into a zip of gzipped {@code .bson}
+ * files plus a {@code manifest.json} with options, indexes, document counts and checksums.
+ * Restores load collections in parallel with unordered bulk writes and build indexes afterwards.
+ */
+@Service
+@RequiredArgsConstructor
+public class MongoBackupService {
+
+    private static final String MANIFEST = "manifest.json";
+    private static final JsonWriterSettings EXTENDED_JSON = JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED).build();
+
+    private final MongoClientRegistry mongoClients;
+    private final ObjectMapper objectMapper;
+    private final BackupArtifactService artifacts;
+
+    @Value("${dbstudio.mongo-backup.parallelism:4}")
+    private int parallelism;
+    @Value("${dbstudio.mongo-backup.batch-size:1000}")
+    private int batchSize;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // ---- Backup ----
+
+    /**
+     * Dumps every collection and view of the profile's database into {@code archive}. The
+     * archive is only created when the dump succeeded.
+     */
+    public MongoBackupManifest backup(ConnectionProfile profile, Path archive, JobProgress progress) throws Exception {
+        String dbName = databaseName(profile);
+        Path workDir = Files.createTempDirectory(archive.toAbsolutePath().getParent(), ".backup-");
+        try (MongoClientRegistry.Lease lease = mongoClients.acquire(profile)) {
+            MongoDatabase db = lease.client().getDatabase(dbName);
+            long createdAt = System.currentTimeMillis();
+
+            List<CollectionDump> dumps = new ArrayList<>();
+            for (Document info : db.listCollections()) {
+                String name = info.getString("name");
+                if (name.startsWith("system.")) continue;
+                boolean view = "view".equals(info.getString("type"));
+                Document options = info.get("options", new Document());
+                dumps.add(new CollectionDump(name, view, options.toJson(EXTENDED_JSON)));
+            }
+            dumps.sort(Comparator.comparing(d -> d.name));
+            for (int i = 0; i < dumps.size(); i++) {
+                CollectionDump dump = dumps.get(i);
+                if (dump.view) continue; // views have no data or indexes; their definition is in the options
+                dump.file = String.format("data/%04d-%s.bson.gz", i + 1, dump.name.replaceAll("[^A-Za-z0-9_.-]", "_"));
+                dump.partFile = workDir.resolve(i + ".part");
+            }
+
+            runInParallel(dumps.stream().filter(d -> !d.view).toList(), dump -> dumpCollection(db, dump, progress));
+
+            List<MongoBackupManifest.Collection> collections = new ArrayList<>();
+            for (CollectionDump dump : dumps) {
+                collections.add(new MongoBackupManifest.Collection(dump.name, dump.file, dump.documents,
+                        dump.part != null ? dump.part.sha256() : null, dump.options, dump.indexes));
+            }
+            MongoBackupManifest manifest = new MongoBackupManifest(MongoBackupManifest.FORMAT, MongoBackupManifest.VERSION,
+                    dbName, createdAt, "gzip", collections);
+            BlockChecksumOutputStream checked = artifacts.checksummed(new BufferedOutputStream(Files.newOutputStream(archive), 64 * 1024));
+            try (ZipOutputStream zip = new ZipOutputStream(checked)) {
+                for (CollectionDump dump : dumps) {
+                    if (dump.part != null) dump.part.moveInto(zip, dump.file);
+                }
+                zip.putNextEntry(new ZipEntry(MANIFEST));
+                zip.write(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(manifest));
+                zip.closeEntry();
+            }
+            artifacts.writeChecksums(archive, "zip", checked, -1, null);
+            return manifest;
+        } catch (Exception e) {
+            Files.deleteIfExists(archive);
+            Files.deleteIfExists(BackupArtifactService.checksumsFile(archive));
+            throw e;
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    /**
+     * Streams the collection's documents as raw BSON, in batches of {@code batchSize} per round
+     * trip, into its gzip part.
+     */
+    private void dumpCollection(MongoDatabase db, CollectionDump dump, JobProgress progress) throws IOException {
+        MongoCollection<RawBsonDocument> collection = db.getCollection(dump.name, RawBsonDocument.class);
+        for (Document index : db.getCollection(dump.name).listIndexes()) dump.indexes.add(index.toJson(EXTENDED_JSON));
+
+        long documents = 0;
+        dump.part = new GzipPart(dump.partFile, progress::addBytes);
+        try (GzipPart part = dump.part;
+             OutputStream out = new BufferedOutputStream(part.stream(), 64 * 1024);
+             MongoCursor<RawBsonDocument> cursor = collection.find().batchSize(batchSize).cursor()) {
+            while (cursor.hasNext()) {
+                ByteBuffer bytes = cursor.next().getByteBuffer().asNIO();
+                out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+                if (++documents % batchSize == 0) progress.addRows(batchSize);
+            }
+        }
+        progress.addRows(documents % batchSize);
+        dump.documents = documents;
+    }
+
+    // ---- Restore ----
+
+    /**
+     * True when the file is an archive written by {@link #backup}, rather than a mongodump folder
+     * or archive for {@code mongorestore}.
+     */
+    public boolean isMongoBackup(File file) {
+        try (ZipFile zip = new ZipFile(file)) {
+            ZipEntry entry = zip.getEntry(MANIFEST);
+            if (entry == null) return false;
+            try (InputStream in = zip.getInputStream(entry)) {
+                return MongoBackupManifest.FORMAT.equals(objectMapper.readTree(in).path("format").asText());
+            }
+        } catch (IOException e) {
+            return false; // not a zip
+        }
+    }
+
+    /**
+     * Restores the archive into the profile's database, replacing collections of the same name.
+     * Every collection's document count and SHA-256 are checked against the manifest before any
+     * collection is dropped, so a damaged archive leaves the database alone, and again as it is
+     * loaded; views are recreated last, once the collections they read exist.
+     */
+    public MongoBackupManifest restore(ConnectionProfile profile, Path archive, JobProgress progress) throws Exception {
+        try (ZipFile zip = new ZipFile(archive.toFile());
+             MongoClientRegistry.Lease lease = mongoClients.acquire(profile)) {
+            MongoBackupManifest manifest;
+            try (InputStream in = zip.getInputStream(requireEntry(zip, MANIFEST))) {
+                manifest = objectMapper.readValue(in, MongoBackupManifest.class);
+            }
+            if (!MongoBackupManifest.FORMAT.equals(manifest.format()) || manifest.version() > MongoBackupManifest.VERSION) {
+                throw new IllegalArgumentException("Unsupported backup format: " + manifest.format() + " version " + manifest.version());
+            }
+            MongoDatabase db = lease.client().getDatabase(databaseName(profile));
+
+            List<MongoBackupManifest.Collection> collections = new ArrayList<>();
+            List<MongoBackupManifest.Collection> views = new ArrayList<>();
+            long totalBytes = 0;
+            for (MongoBackupManifest.Collection collection : manifest.collections()) {
+                if (collection.file() == null) {
+                    views.add(collection);
+                } else {
+                    collections.add(collection);
+                    totalBytes += requireEntry(zip, collection.file()).getCompressedSize();
+                }
+            }
+            progress.setTotalBytes(2 * totalBytes); // read once to verify, once to load
+
+            runInParallel(collections, collection -> checkCollection(zip, collection, progress));
+            runInParallel(collections, collection -> {
+                create(db, collection);
+                loadCollection(db, zip, collection, progress);
+                createIndexes(db, collection);
+            });
+            for (MongoBackupManifest.Collection view : views) create(db, view);
+            return manifest;
+        }
+    }
+
+    /**
+     * Drops the collection (or view) and creates it again with its original options.
+     */
+    private static void create(MongoDatabase db, MongoBackupManifest.Collection collection) {
+        db.getCollection(collection.name()).drop();
+        Document command = new Document("create", collection.name());
+        if (collection.options() != null) command.putAll(Document.parse(collection.options()));
+        db.runCommand(command);
+    }
+
+    private void loadCollection(MongoDatabase db, ZipFile zip, MongoBackupManifest.Collection collection,
+                                JobProgress progress) throws IOException {
+        MongoCollection<RawBsonDocument> target = db.getCollection(collection.name(), RawBsonDocument.class);
+        BulkWriteOptions unordered = new BulkWriteOptions().ordered(false);
+        MessageDigest sha256 = sha256();
+        long documents = 0;
+        try (InputStream in = new BufferedInputStream(new DigestInputStream(new GZIPInputStream(
+                new CountingInputStream(zip.getInputStream(requireEntry(zip, collection.file())), progress::addBytes), 64 * 1024), sha256), 64 * 1024)) {
+            List<InsertOneModel<RawBsonDocument>> batch = new ArrayList<>(batchSize);
+            for (RawBsonDocument document = readDocument(in); document != null; document = readDocument(in)) {
+                batch.add(new InsertOneModel<>(document));
+                if (batch.size() == batchSize) {
+                    documents += target.bulkWrite(batch, unordered).getInsertedCount();
+                    progress.addRows(batch.size());
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                documents += target.bulkWrite(batch, unordered).getInsertedCount();
+                progress.addRows(batch.size());
+            }
+        }
+        String checksum = HexFormat.of().formatHex(sha256.digest());
+        if (documents != collection.documents() || !checksum.equals(collection.sha256())) {
+            throw new IllegalStateException("Collection " + collection.name() + " does not match the backup manifest ("
+                    + documents + " of " + collection.documents() + " documents, checksum "
+                    + (checksum.equals(collection.sha256()) ? "ok" : "mismatch") + "); the archive may be corrupt");
+        }
+    }
+
+    /**
+     * Reads a collection's data file without loading it and checks it against the manifest.
+     */
+    private static void checkCollection(ZipFile zip, MongoBackupManifest.Collection collection, JobProgress progress) {
+        MessageDigest sha256 = sha256();
+        long documents = 0;
+        try (InputStream in = new BufferedInputStream(new DigestInputStream(new GZIPInputStream(
+                new CountingInputStream(zip.getInputStream(requireEntry(zip, collection.file())), progress::addBytes), 64 * 1024), sha256), 64 * 1024)) {
+            while (readDocument(in) != null) documents++;
+        } catch (IOException e) { // e.g. a truncated or damaged entry
+            throw new IllegalStateException("Collection " + collection.name() + " cannot be read from the archive (" + e.getMessage()
+                    + "); the archive may be corrupt. Nothing was restored.", e);
+        }
+        String checksum = HexFormat.of().formatHex(sha256.digest());
+        if (documents != collection.documents() || !checksum.equals(collection.sha256())) {
+            throw new IllegalStateException("Collection " + collection.name() + " does not match the backup manifest ("
+                    + documents + " of " + collection.documents() + " documents, checksum "
+                    + (checksum.equals(collection.sha256()) ? "ok" : "mismatch") + "); the archive may be corrupt. Nothing was restored.");
+        }
+    }
+
+    /**
+     * Builds every index except {@code _id} in one {@code createIndexes} command, so the server
+     * scans the collection once.
+     */
+    private static void createIndexes(MongoDatabase db, MongoBackupManifest.Collection collection) {
+        List<Document> specs = new ArrayList<>();
+        for (String json : collection.indexes()) {
+            Document spec = Document.parse(json);
+            if ("_id_".equals(spec.getString("name"))) continue;
+            spec.remove("v");
+            spec.remove("ns");
+            specs.add(spec);
+        }
+        if (!specs.isEmpty()) {
+            db.runCommand(new Document("createIndexes", collection.name()).append("indexes", specs));
+        }
+    }
+
+    /**
+     * Reads the next length-prefixed BSON document, or null at the end of the stream.
+     */
+    private static RawBsonDocument readDocument(InputStream in) throws IOException {
+        byte[] header = in.readNBytes(4);
+        if (header.length == 0) return null;
+        if (header.length < 4) throw new EOFException("Truncated BSON document");
+        int length = (header[0] & 0xff) | (header[1] & 0xff) << 8 | (header[2] & 0xff) << 16 | (header[3] & 0xff) << 24;
+        if (length < 5) throw new IOException("Invalid BSON document length " + length);
+        byte[] bytes = new byte[length];
+        System.arraycopy(header, 0, bytes, 0, 4);
+        if (in.readNBytes(bytes, 4, length - 4) != length - 4) throw new EOFException("Truncated BSON document");
+        return new RawBsonDocument(bytes);
+    }
+
+    // ---- Helpers ----
+
+    @FunctionalInterface
+    private interface Work<T> {
+        void run(T item) throws Exception;
+    }
+
+    /**
+     * Runs {@code work} for every item on up to {@code parallelism} workers taking items from a
+     * shared queue. The first failure stops the other workers.
+     */
+    private <T> void runInParallel(List<T> items, Work<T> work) throws Exception {
+        Queue<T> pending = new ConcurrentLinkedQueue<>(items);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        int workers = Math.max(1, Math.min(parallelism, items.size()));
+        CountDownLatch done = new CountDownLatch(workers);
+        for (int i = 0; i < workers; i++) {
+            executor.execute(() -> {
+                try {
+                    T item;
+                    while (failure.get() == null && (item = pending.poll()) != null) work.run(item);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            // Cancelled: stop the workers and wait until they let go of their files
+            failure.compareAndSet(null, e);
+            done.await();
+            throw e;
+        }
+        Throwable error = failure.get();
+        if (error instanceof Exception ex) throw ex;
+        if (error != null) throw new IllegalStateException(error);
+    }
+
+    /**
+     * The database selected on the page, or the one named in the connection string.
+     */
+    private static String databaseName(ConnectionProfile profile) {
+        String dbName = new ConnectionString(profile.getMongoUri().trim()).getDatabase();
+        if (dbName == null) dbName = profile.getDatabaseName();
+        if (dbName == null || dbName.isBlank()) throw new IllegalArgumentException("No MongoDB database selected");
+        return dbName;
+    }
+
+    private static ZipEntry requireEntry(ZipFile zip, String name) {
+        ZipEntry entry = zip.getEntry(name);
+        if (entry == null) throw new IllegalArgumentException("Backup is incomplete: " + name + " is missing");
+        return entry;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (var paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static class CollectionDump {
+        final String name;
+        final boolean view;
+        final String options;
+        String file;
+        Path partFile;
+        // Written by the worker that dumped the collection, read after all workers finished
+        final List<String> indexes = new ArrayList<>();
+        GzipPart part;
+        long documents;
+
+        CollectionDump(String name, boolean view, String options) {
+            this.name = name;
+            this.view = view;
+            this.options = options;
+        }
+    }
+}
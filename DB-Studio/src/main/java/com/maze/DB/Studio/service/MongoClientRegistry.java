@@ -0,0 +1,192 @@
+package com.maze.DB.Studio.service;
+
+import com.maze.DB.Studio.model.ConnectionProfile;
+import com.maze.DB.Studio.model.ProfileKey;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps long-lived {@link MongoClient} instances keyed by a normalized connection URI, so
+ * browsing and imports reuse warm connection pools instead of starting new monitor threads
+ * for every operation. Callers borrow a client through a {@link Lease}; clients with no
+ * open leases are closed once they have been idle for a while.
+ */
+@Component
+public class MongoClientRegistry {
+
+    @Value("${dbstudio.mongo.max-clients:20}")
+    private int maxClients;
+    @Value("${dbstudio.mongo.idle-client-timeout-ms:600000}")
+    private long idleClientTimeoutMs;
+
+    private final Map<String, SharedClient> clients = new ConcurrentHashMap<>();
+
+    /**
+     * Borrows the shared client for the profile's Mongo URI. Closing the lease releases it;
+     * the underlying client stays open for the next caller.
+     */
+    public Lease acquire(ConnectionProfile profile) {
+        ConnectionString connString = new ConnectionString(profile.getMongoUri().trim());
+        String key = normalize(connString);
+        while (true) {
+            SharedClient shared = clients.computeIfAbsent(key, k -> new SharedClient(connString));
+            if (shared.retain()) {
+                evictOverflow();
+                return new Lease(shared);
+            }
+            clients.remove(key, shared); // closed by a concurrent eviction, build a new one
+        }
+    }
+
+    /**
+     * Closes and forgets the client for the profile, e.g. after it failed to authenticate.
+     */
+    public void evict(ConnectionProfile profile) {
+        SharedClient shared = clients.remove(normalize(new ConnectionString(profile.getMongoUri().trim())));
+        if (shared != null) shared.closeWhenReleased();
+    }
+
+    @Scheduled(fixedDelayString = "${dbstudio.mongo.sweep-interval-ms:60000}")
+    public void evictIdleClients() {
+        long cutoff = System.currentTimeMillis() - idleClientTimeoutMs;
+        clients.forEach((key, shared) -> {
+            if (shared.lastUsed < cutoff && shared.closeIfUnused()) clients.remove(key, shared);
+        });
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        clients.values().forEach(SharedClient::closeWhenReleased);
+        clients.clear();
+    }
+
+    private void evictOverflow() {
+        while (clients.size() > maxClients) {
+            Map.Entry<String, SharedClient> lru = clients.entrySet().stream()
+                    .filter(e -> e.getValue().refCount == 0)
+                    .min(Comparator.comparingLong(e -> e.getValue().lastUsed))
+                    .orElse(null);
+            if (lru == null) return; // all clients are in use
+            if (lru.getValue().closeIfUnused()) clients.remove(lru.getKey(), lru.getValue());
+        }
+    }
+
+    /**
+     * Builds a registry key that treats equivalent URIs as the same target: hosts are
+     * lower-cased and sorted, options are sorted, and the database path is dropped unless
+     * it doubles as the authentication database.
+     */
+    static String normalize(ConnectionString connString) {
+        StringBuilder key = new StringBuilder(connString.isSrvProtocol() ? "mongodb+srv://" : "mongodb://");
+        if (connString.getUsername() != null) {
+            key.append(connString.getUsername()).append('@');
+        }
+        key.append(connString.getHosts().stream()
+                .map(h -> h.toLowerCase(Locale.ROOT))
+                .sorted()
+                .collect(Collectors.joining(",")));
+
+        String raw = connString.getConnectionString();
+        int optionsIdx = raw.indexOf('?');
+        String options = optionsIdx < 0 ? "" : raw.substring(optionsIdx + 1);
+        boolean explicitAuthSource = options.toLowerCase(Locale.ROOT).contains("authsource=");
+        if (connString.getCredential() != null && !explicitAuthSource && connString.getDatabase() != null) {
+            key.append('/').append(connString.getDatabase());
+        }
+        if (!options.isEmpty()) {
+            key.append('?').append(Arrays.stream(options.split("&"))
+                    .filter(o -> !o.isBlank())
+                    .sorted(String.CASE_INSENSITIVE_ORDER)
+                    .collect(Collectors.joining("&")));
+        }
+        // The password is part of the identity but must not be readable from the key
+        if (connString.getPassword() != null) {
+            key.append('#').append(ProfileKey.hashSecret(new String(connString.getPassword())));
+        }
+        return key.toString();
+    }
+
+    /**
+     * A borrowed reference to a shared client. Do not close the client itself; close the lease.
+     */
+    public static final class Lease implements AutoCloseable {
+        private final SharedClient shared;
+        private boolean released;
+
+        private Lease(SharedClient shared) {
+            this.shared = shared;
+        }
+
+        public MongoClient client() {
+            return shared.client;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                shared.release();
+            }
+        }
+    }
+
+    private static final class SharedClient {
+        private final MongoClient client;
+        private int refCount;
+        private boolean closed;
+        private boolean closeRequested;
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        SharedClient(ConnectionString connString) {
+            this.client = MongoClients.create(MongoClientSettings.builder()
+                    .applyConnectionString(connString)
+                    .applyToConnectionPoolSettings(pool -> pool.maxConnectionIdleTime(5, TimeUnit.MINUTES))
+                    .build());
+        }
+
+        synchronized boolean retain() {
+            if (closed || closeRequested) return false;
+            refCount++;
+            lastUsed = System.currentTimeMillis();
+            return true;
+        }
+
+        synchronized void release() {
+            refCount--;
+            lastUsed = System.currentTimeMillis();
+            if (refCount == 0 && closeRequested) doClose();
+        }
+
+        synchronized boolean closeIfUnused() {
+            if (refCount > 0) return false;
+            doClose();
+            return true;
+        }
+
+        synchronized void closeWhenReleased() {
+            closeRequested = true;
+            if (refCount == 0) doClose();
+        }
+
+        private void doClose() {
+            if (!closed) {
+                closed = true;
+                client.close();
+            }
+        }
+    }
+}
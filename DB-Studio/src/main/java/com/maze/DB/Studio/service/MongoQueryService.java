@@ -0,0 +1,330 @@
+package com.maze.DB.Studio.service;
+
+import com.maze.DB.Studio.model.ConnectionProfile;
+import com.maze.DB.Studio.model.MongoQuery;
+import com.mongodb.ConnectionString;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.bson.types.Binary;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * Runs {@link MongoQuery} queries and turns documents into rows with a stable set of columns:
+ * the projected fields, or else the union of the top-level keys in order of first appearance.
+ * Values keep their types (numbers, booleans, dates, decimals); embedded documents and arrays
+ * become relaxed extended JSON. Results are read cursor batch by batch and never collected
+ * beyond what the caller keeps.
+ */
+@Service
+@RequiredArgsConstructor
+public class MongoQueryService {
+
+    /**
+     * Column holding, as JSON, fields of streamed documents that were not among the columns
+     * fixed from the first documents.
+     */
+    public static final String OTHER_FIELDS = "(other fields)";
+
+    private static final JsonWriterSettings JSON = JsonWriterSettings.builder().outputMode(JsonMode.RELAXED).build();
+    // Boundary keys must parse back to the same BSON types (ObjectId, dates, longs, decimals)
+    private static final JsonWriterSettings BOUNDARY_JSON = JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED).build();
+
+    private final MongoClientRegistry mongoClients;
+    private final SchemaMetadataCache metadataCache;
+
+    @Value("${dbstudio.mongo.batch-size:1000}")
+    private int batchSize;
+    @Value("${dbstudio.mongo.column-sample:1000}")
+    private int columnSample;
+
+    /**
+     * Receives a streamed result: the header once, then every row.
+     */
+    public interface RowSink {
+        void header(List<String> columns) throws IOException;
+
+        void row(List<Object> values) throws IOException;
+    }
+
+    /**
+     * One page for the result grid: a header row, then up to {@code size} documents after
+     * skipping {@code skip}. The columns are the union of the page's keys. Empty when nothing matched.
+     */
+    public List<List<Object>> page(ConnectionProfile profile, String query, int skip, int size) {
+        MongoQuery q = MongoQuery.parse(query);
+        int max = q.limit() > 0 ? Math.max(0, Math.min(size, q.limit() - skip)) : size;
+        List<Document> docs = new ArrayList<>();
+        if (max > 0) {
+            try (MongoClientRegistry.Lease lease = mongoClients.acquire(profile);
+                 // One round trip: the whole page comes in the first batch
+                 MongoCursor<Document> cursor = find(lease, profile, q).skip(skip).limit(max).batchSize(max).iterator()) {
+                while (cursor.hasNext()) docs.add(cursor.next());
+            }
+        }
+        if (docs.isEmpty()) return List.of();
+        return toRows(q, docs);
+    }
+
+    /**
+     * Rows for documents that were already read, with columns from the query's projection or
+     * the documents' keys.
+     */
+    public List<List<Object>> toRows(MongoQuery query, List<Document> docs) {
+        List<String> columns = query.projectedFields() != null ? query.projectedFields() : unionOfKeys(docs);
+        List<List<Object>> rows = new ArrayList<>(docs.size() + 1);
+        rows.add(new ArrayList<>(columns));
+        for (Document doc : docs) rows.add(toRow(doc, columns, null));
+        return rows;
+    }
+
+    /**
+     * Streams every matching document to the sink, {@code batch-size} documents per round trip.
+     * Without a projection the columns are fixed from the first {@code column-sample} documents;
+     * if more follow, fields outside those columns go to a final {@link #OTHER_FIELDS} column.
+     *
+     * @return the number of rows written
+     */
+    public long stream(ConnectionProfile profile, String query, RowSink sink, JobProgress progress) throws IOException {
+        MongoQuery q = MongoQuery.parse(query);
+        try (MongoClientRegistry.Lease lease = mongoClients.acquire(profile);
+             MongoCursor<Document> cursor = find(lease, profile, q).batchSize(batchSize).iterator()) {
+            List<String> columns = q.projectedFields();
+            List<Document> sample = new ArrayList<>();
+            Set<String> known = null;
+            if (columns == null) {
+                while (sample.size() < columnSample && cursor.hasNext()) sample.add(cursor.next());
+                columns = unionOfKeys(sample);
+                if (cursor.hasNext()) known = new HashSet<>(columns); // later documents may have other fields
+            }
+            List<String> header = new ArrayList<>(columns);
+            if (known != null) header.add(OTHER_FIELDS);
+            sink.header(header);
+
+            long rows = 0;
+            for (Document doc : sample) {
+                sink.row(toRow(doc, columns, known));
+                progress.addRows(1);
+                rows++;
+            }
+            sample.clear();
+            while (cursor.hasNext()) {
+                sink.row(toRow(cursor.next(), columns, known));
+                progress.addRows(1);
+                rows++;
+            }
+            return rows;
+        }
+    }
+
+    // ---- Seek pagination ----
+
+    /**
+     * A page read by seeking past the last document of the page before it.
+     *
+     * @param rows    a header row, then the page's rows
+     * @param lastKey boundary of this page, to pass as {@code afterKey} for the next one; null when empty
+     * @param key     the field the pages are ordered and seeked on
+     */
+    public record SeekPage(List<List<Object>> rows, String lastKey, boolean lastPage, String key) {
+    }
+
+    /**
+     * Reads the page after {@code afterKey} by filtering on the query's sort key (or {@code _id}
+     * when it has no sort) instead of skipping, so every page costs one page of index reads.
+     * Ties on the sort key are broken by {@code _id}. Returns null when the query cannot be paged
+     * this way and has to fall back to skip: a sort on more than one field, a sort field that
+     * does not lead an index, or a projection that drops the sort field or {@code _id}.
+     * The sort field should hold values of one type: comparisons only match values of the boundary's type.
+     *
+     * @param pageIndex number of pages before this one, to honour the query's limit
+     */
+    public SeekPage seekPage(ConnectionProfile profile, String query, String afterKey, int pageIndex, int size) throws Exception {
+        MongoQuery q = MongoQuery.parse(query);
+        Seek seek = seekOrder(q);
+        if (seek == null) return null;
+        try (MongoClientRegistry.Lease lease = mongoClients.acquire(profile)) {
+            MongoCollection<Document> collection = collection(lease, profile, q);
+            if (!seek.field().equals("_id") && !leadsAnIndex(profile, collection, seek.field())) return null;
+
+            long remaining = q.limit() > 0 ? q.limit() - (long) pageIndex * size : Long.MAX_VALUE;
+            int fetch = (int) Math.min(size + 1, Math.max(0, remaining)); // one extra to detect the last page
+            List<Document> docs = new ArrayList<>();
+            if (fetch > 0) {
+                Document filter = afterKey == null ? q.filter() : and(q.filter(), seek.after(Document.parse(afterKey)));
+                FindIterable<Document> find = collection.find(filter).sort(seek.sort()).limit(fetch).batchSize(fetch);
+                if (q.projection() != null) find = find.projection(q.projection());
+                try (MongoCursor<Document> cursor = find.iterator()) {
+                    while (cursor.hasNext()) docs.add(cursor.next());
+                }
+            }
+            boolean lastPage = docs.size() <= size;
+            if (!lastPage) docs = docs.subList(0, size);
+            String lastKey = docs.isEmpty() ? null : seek.boundary(docs.get(docs.size() - 1)).toJson(BOUNDARY_JSON);
+            List<List<Object>> rows = docs.isEmpty() ? List.of() : toRows(q, docs);
+            return new SeekPage(rows, lastKey, lastPage, seek.field());
+        }
+    }
+
+    /**
+     * @param field     the sort field, {@code _id} when the query has no sort
+     * @param direction 1 or -1, for the field and the {@code _id} tie-breaker alike
+     */
+    private record Seek(String field, int direction) {
+
+        Document sort() {
+            Document sort = new Document(field, direction);
+            if (!field.equals("_id")) sort.append("_id", direction);
+            return sort;
+        }
+
+        Document boundary(Document last) {
+            Document boundary = new Document("_id", last.get("_id"));
+            if (!field.equals("_id")) boundary.append("v", last.getEmbedded(List.of(field.split("\\.")), Object.class));
+            return boundary;
+        }
+
+        /**
+         * Documents that sort after the boundary. A null or missing sort value sorts before
+         * every other value, and the comparison operators never match it, so it needs its own branch.
+         */
+        Document after(Document boundary) {
+            String op = direction > 0 ? "$gt" : "$lt";
+            Object id = boundary.get("_id");
+            if (field.equals("_id")) return new Document("_id", new Document(op, id));
+            Object value = boundary.get("v");
+            List<Document> or = new ArrayList<>();
+            if (value == null) {
+                or.add(new Document(field, null).append("_id", new Document(op, id)));
+                if (direction > 0) or.add(new Document(field, new Document("$ne", null)));
+            } else {
+                or.add(new Document(field, new Document(op, value)));
+                or.add(new Document(field, value).append("_id", new Document(op, id)));
+                if (direction < 0) or.add(new Document(field, null));
+            }
+            return new Document("$or", or);
+        }
+    }
+
+    private static Seek seekOrder(MongoQuery q) {
+        Document sort = q.sort();
+        if (sort == null || sort.isEmpty()) sort = new Document("_id", 1);
+        List<String> keys = new ArrayList<>(sort.keySet());
+        if (keys.size() > 2 || (keys.size() == 2 && !keys.get(1).equals("_id"))) return null;
+        int direction = direction(sort.get(keys.get(0)));
+        if (direction == 0 || (keys.size() == 2 && direction(sort.get("_id")) != direction)) return null;
+
+        String field = keys.get(0);
+        if (q.projection() != null && !q.projection().isEmpty()) {
+            // The boundary is read from the returned documents
+            List<String> fields = q.projectedFields();
+            String top = field.contains(".") ? field.substring(0, field.indexOf('.')) : field;
+            if (fields != null && !(fields.contains("_id") && fields.contains(top))) return null;
+            if (fields == null && (excluded(q.projection(), "_id") || excluded(q.projection(), field) || excluded(q.projection(), top))) return null;
+        }
+        return new Seek(field, direction);
+    }
+
+    private static int direction(Object value) {
+        if (value instanceof Number n && (n.intValue() == 1 || n.intValue() == -1)) return n.intValue();
+        return 0; // e.g. {"$meta": "textScore"}
+    }
+
+    private static boolean excluded(Document projection, String field) {
+        Object value = projection.get(field);
+        return value instanceof Number n && n.intValue() == 0 || Boolean.FALSE.equals(value);
+    }
+
+    private static Document and(Document filter, Document seek) {
+        return filter.isEmpty() ? seek : new Document("$and", List.of(filter, seek));
+    }
+
+    /**
+     * Seeking only pays off when the server can walk an index from the boundary; the leading
+     * fields of the collection's indexes are cached like other metadata.
+     */
+    private boolean leadsAnIndex(ConnectionProfile profile, MongoCollection<Document> collection, String field) throws Exception {
+        List<String> leading = metadataCache.get(profile, "mongo-index-prefixes", collection.getNamespace().getDatabaseName(),
+                collection.getNamespace().getCollectionName(), () -> {
+                    List<String> fields = new ArrayList<>();
+                    for (Document index : collection.listIndexes()) {
+                        Document key = index.get("key", Document.class);
+                        if (key != null && !key.isEmpty()) fields.add(key.keySet().iterator().next());
+                    }
+                    return fields;
+                });
+        return leading.contains(field);
+    }
+
+    private MongoCollection<Document> collection(MongoClientRegistry.Lease lease, ConnectionProfile profile, MongoQuery q) {
+        return lease.client()
+                .getDatabase(new ConnectionString(profile.getMongoUri()).getDatabase())
+                .getCollection(q.collection());
+    }
+
+    private FindIterable<Document> find(MongoClientRegistry.Lease lease, ConnectionProfile profile, MongoQuery q) {
+        FindIterable<Document> find = collection(lease, profile, q).find(q.filter());
+        if (q.projection() != null) find = find.projection(q.projection());
+        if (q.sort() != null) find = find.sort(q.sort());
+        if (q.limit() > 0) find = find.limit(q.limit());
+        return find;
+    }
+
+    private static List<String> unionOfKeys(List<Document> docs) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (Document doc : docs) keys.addAll(doc.keySet());
+        return new ArrayList<>(keys);
+    }
+
+    /**
+     * @param known the columns' names when fields outside them are collected into a last column, else null
+     */
+    private static List<Object> toRow(Document doc, List<String> columns, Set<String> known) {
+        List<Object> row = new ArrayList<>(columns.size() + 1);
+        for (String column : columns) row.add(toValue(doc.get(column)));
+        if (known != null) {
+            Document other = null;
+            for (Map.Entry<String, Object> field : doc.entrySet()) {
+                if (known.contains(field.getKey())) continue;
+                if (other == null) other = new Document();
+                other.put(field.getKey(), field.getValue());
+            }
+            row.add(other == null ? null : other.toJson(JSON));
+        }
+        return row;
+    }
+
+    /**
+     * A BSON value as the Java type the grid and the exporters format natively.
+     */
+    public static Object toValue(Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean
+                || value instanceof Integer || value instanceof Long || value instanceof Double) {
+            return value;
+        }
+        if (value instanceof Date date) return new Timestamp(date.getTime());
+        if (value instanceof ObjectId id) return id.toHexString();
+        if (value instanceof Decimal128 decimal) {
+            return decimal.isNaN() || decimal.isInfinite() ? decimal.toString() : decimal.bigDecimalValue();
+        }
+        if (value instanceof Binary binary) return binary.getData();
+        if (value instanceof Document doc) return doc.toJson(JSON);
+        if (value instanceof List<?>) {
+            // Arrays have no JSON writer of their own; write them as a field and keep the value
+            String json = new Document("v", value).toJson(JSON);
+            return json.substring(json.indexOf(':') + 1, json.length() - 1).trim();
+        }
+        return value.toString();
+    }
+}
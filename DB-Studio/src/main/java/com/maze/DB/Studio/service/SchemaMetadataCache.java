@@ -0,0 +1,94 @@
+package com.maze.DB.Studio.service;
+
+import com.maze.DB.Studio.model.ConnectionProfile;
+import com.maze.DB.Studio.model.ProfileKey;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Caches database, table, view, procedure and column lists per connection target so that
+ * form posts do not re-run slow {@code DatabaseMetaData} calls. Entries expire after a TTL,
+ * the least recently used entries are dropped beyond a size limit, and DDL or an explicit
+ * refresh invalidates a target's entries.
+ */
+@Component
+public class SchemaMetadataCache {
+
+    @Value("${dbstudio.metadata.cache-ttl-ms:300000}")
+    private long ttlMs;
+    @Value("${dbstudio.metadata.cache-max-entries:500}")
+    private int maxEntries;
+
+    private final LinkedHashMap<CacheKey, Entry> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+    // Bumped by every invalidation, guarded by entries; loads that straddle one are not stored
+    private long generation;
+
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load() throws Exception;
+    }
+
+    /**
+     * Returns the cached list for the given kind ("tables", "columns", ...), catalog and object
+     * name, loading it when missing or expired. Failed loads are not cached.
+     */
+    public List<String> get(ConnectionProfile profile, String kind, String catalog, String name,
+                            Loader<List<String>> loader) throws Exception {
+        return getValue(profile, kind, catalog, name, () -> Collections.unmodifiableList(new ArrayList<>(loader.load())));
+    }
+
+    /**
+     * As {@link #get}, for metadata that is not a list of names. Every kind must always be
+     * loaded as the same type, and the value should be immutable since callers share it.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getValue(ConnectionProfile profile, String kind, String catalog, String name, Loader<T> loader) throws Exception {
+        CacheKey key = new CacheKey(ProfileKey.of(profile), kind, catalog, name);
+        long loadGeneration;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && System.currentTimeMillis() - entry.loadedAt < ttlMs) return (T) entry.value;
+            loadGeneration = generation;
+        }
+        T value = loader.load();
+        synchronized (entries) {
+            // The value may predate DDL that invalidated the cache while it was loading
+            if (generation == loadGeneration) entries.put(key, new Entry(value, System.currentTimeMillis()));
+        }
+        return value;
+    }
+
+    /**
+     * Drops every entry for the profile's target, plus all database lists since
+     * CREATE/DROP DATABASE is visible from any connection to the server.
+     */
+    public void invalidate(ConnectionProfile profile) {
+        ProfileKey target = ProfileKey.of(profile);
+        synchronized (entries) {
+            generation++;
+            entries.keySet().removeIf(k -> k.target.equals(target) || k.kind.equals("databases"));
+        }
+    }
+
+    private record CacheKey(ProfileKey target, String kind, String catalog, String name) {
+        CacheKey {
+            Objects.requireNonNull(target);
+            Objects.requireNonNull(kind);
+        }
+    }
+
+    private record Entry(Object value, long loadedAt) {
+    }
+}
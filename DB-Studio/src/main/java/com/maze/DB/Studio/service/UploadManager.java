@@ -0,0 +1,265 @@
+package com.maze.DB.Studio.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Receives large files as fixed-size chunks written straight into place in the target file,
+ * instead of buffering a multipart request and copying it again. Each chunk carries a CRC32
+ * that is checked before the chunk counts as received, chunks may arrive in any order, and a
+ * client that lost its connection asks which chunks are missing and sends only those.
+ * <p>
+ * {@link Upload#openStream()} reads the file while it is still arriving, so an import can
+ * start parsing as soon as the first chunk is in.
+ */
+@Service
+public class UploadManager {
+
+    @Value("${dbstudio.uploads.dir:./exports/uploads}")
+    private String uploadDir;
+    @Value("${dbstudio.uploads.chunk-size:8388608}")
+    private int chunkSize;
+    @Value("${dbstudio.uploads.idle-timeout-ms:3600000}")
+    private long idleTimeoutMs;
+
+    private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+
+    /**
+     * Starts an upload of {@code size} bytes and creates its (empty) target file.
+     */
+    public Upload start(String owner, String filename, long size) throws IOException {
+        if (size < 0) throw new IllegalArgumentException("Invalid upload size: " + size);
+        Path dir = Paths.get(uploadDir);
+        Files.createDirectories(dir);
+        String id = UUID.randomUUID().toString();
+        Upload upload = new Upload(id, owner, filename, size, chunkSize, dir.resolve(id + ".part"));
+        uploads.put(id, upload);
+        return upload;
+    }
+
+    /**
+     * Returns the owner's upload, or null when it does not exist, expired or belongs to someone else.
+     */
+    public Upload find(String owner, String id) {
+        Upload upload = id == null ? null : uploads.get(id);
+        return upload != null && upload.owner.equals(owner) ? upload : null;
+    }
+
+    /**
+     * Deletes the upload's file; readers waiting for more data fail.
+     */
+    public void discard(Upload upload) {
+        uploads.remove(upload.id);
+        upload.abort("Upload discarded");
+    }
+
+    /**
+     * Drops uploads that have not received a chunk and were not read for the idle timeout, e.g.
+     * because the browser was closed and never came back to resume.
+     */
+    @Scheduled(fixedDelayString = "${dbstudio.uploads.sweep-interval-ms:60000}")
+    public void removeIdleUploads() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMs;
+        for (Upload upload : uploads.values()) {
+            if (upload.lastActivity < cutoff) discard(upload);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        uploads.values().forEach(this::discard);
+    }
+
+    public static class Upload {
+        private final String id;
+        private final String owner;
+        private final String filename;
+        private final long size;
+        private final int chunkSize;
+        private final int chunkCount;
+        private final Path file;
+        private final FileChannel channel;
+
+        // Guarded by this
+        private final BitSet received;
+        private long contiguousBytes;
+        private String abortReason;
+
+        private volatile long lastActivity = System.currentTimeMillis();
+
+        private Upload(String id, String owner, String filename, long size, int chunkSize, Path file) throws IOException {
+            this.id = id;
+            this.owner = owner;
+            this.filename = filename;
+            this.size = size;
+            this.chunkSize = chunkSize;
+            this.chunkCount = (int) ((size + chunkSize - 1) / chunkSize);
+            this.file = file;
+            this.received = new BitSet(chunkCount);
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getFilename() {
+            return filename;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public synchronized boolean isComplete() {
+            return received.cardinality() == chunkCount;
+        }
+
+        /**
+         * Indexes of the chunks not received yet.
+         */
+        public synchronized List<Integer> missingChunks() {
+            List<Integer> missing = new ArrayList<>();
+            for (int i = received.nextClearBit(0); i < chunkCount; i = received.nextClearBit(i + 1)) missing.add(i);
+            return missing;
+        }
+
+        /**
+         * Writes one chunk at its offset in the target file. The chunk only counts as received
+         * when its length and CRC32 match; a failed chunk is simply sent again.
+         *
+         * @param crc32 CRC32 of the chunk as unsigned hex, as computed by the client
+         */
+        public void writeChunk(int index, InputStream body, String crc32) throws IOException {
+            if (index < 0 || index >= chunkCount) throw new IllegalArgumentException("Chunk " + index + " is out of range");
+            long offset = (long) index * chunkSize;
+            long expectedLength = Math.min(chunkSize, size - offset);
+            checkNotAborted();
+            lastActivity = System.currentTimeMillis();
+            synchronized (this) {
+                // A resent chunk must not overwrite data a reader may already be consuming
+                if (received.get(index)) {
+                    body.transferTo(OutputStream.nullOutputStream());
+                    return;
+                }
+            }
+
+            CRC32 crc = new CRC32();
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            long written = 0;
+            int n;
+            while ((n = body.read(buffer.array())) > 0) {
+                if (written + n > expectedLength) throw new IllegalArgumentException("Chunk " + index + " is longer than " + expectedLength + " bytes");
+                crc.update(buffer.array(), 0, n);
+                buffer.limit(n).position(0);
+                while (buffer.hasRemaining()) channel.write(buffer, offset + written + buffer.position());
+                written += n;
+                buffer.clear();
+            }
+            if (written != expectedLength) {
+                throw new IllegalArgumentException("Chunk " + index + " has " + written + " bytes, expected " + expectedLength);
+            }
+            if (crc32 == null || Long.parseLong(crc32.trim(), 16) != crc.getValue()) {
+                throw new IllegalArgumentException("Checksum mismatch for chunk " + index);
+            }
+
+            synchronized (this) {
+                received.set(index);
+                int next = received.nextClearBit(0);
+                contiguousBytes = Math.min(size, (long) next * chunkSize);
+                notifyAll();
+            }
+        }
+
+        /**
+         * Waits until every chunk has been received.
+         */
+        public synchronized void awaitComplete() throws IOException, InterruptedException {
+            while (!isComplete()) {
+                checkNotAborted();
+                wait(1000);
+            }
+        }
+
+        /**
+         * Reads the file from the start while it is being uploaded: reads block until the next
+         * chunk in order has arrived and end when the whole file has been read.
+         */
+        public InputStream openStream() {
+            return new InputStream() {
+                private long position;
+
+                @Override
+                public int read() throws IOException {
+                    byte[] one = new byte[1];
+                    return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    if (len == 0) return 0;
+                    long available = awaitBytesAfter(position);
+                    if (available <= 0) return -1;
+                    int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, available)), position);
+                    if (n > 0) position += n;
+                    return n;
+                }
+            };
+        }
+
+        private synchronized long awaitBytesAfter(long position) throws IOException {
+            while (contiguousBytes <= position && position < size) {
+                checkNotAborted();
+                try {
+                    wait(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Upload read interrupted");
+                }
+            }
+            lastActivity = System.currentTimeMillis();
+            return contiguousBytes - position;
+        }
+
+        private synchronized void checkNotAborted() throws IOException {
+            if (abortReason != null) throw new IOException(abortReason + ": " + filename);
+        }
+
+        private void abort(String reason) {
+            synchronized (this) {
+                abortReason = reason;
+                notifyAll();
+            }
+            try {
+                channel.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.maze.DB.Studio.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Computes the SHA-256 of everything written and a CRC32C per fixed-size block on the way to the
+ * underlying stream. The block checksums let a file be verified in parallel, and tell which part
+ * of it is damaged.
+ */
+public class BlockChecksumOutputStream extends FilterOutputStream {
+
+    private final int blockSize;
+    private final MessageDigest digest;
+    private final CRC32C blockCrc = new CRC32C();
+    private final List<String> blocks = new ArrayList<>();
+    private int inBlock;
+    private long size;
+    private String sha256;
+
+    public BlockChecksumOutputStream(OutputStream out, int blockSize) {
+        super(out);
+        if (blockSize <= 0) throw new IllegalArgumentException("Block size must be positive");
+        this.blockSize = blockSize;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        digest.update(b, off, len);
+        size += len;
+        while (len > 0) {
+            int n = Math.min(len, blockSize - inBlock);
+            blockCrc.update(b, off, n);
+            inBlock += n;
+            off += n;
+            len -= n;
+            if (inBlock == blockSize) endBlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (sha256 != null) return;
+        super.close();
+        if (inBlock > 0) endBlock();
+        sha256 = HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void endBlock() {
+        blocks.add(Long.toHexString(blockCrc.getValue()));
+        blockCrc.reset();
+        inBlock = 0;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Bytes written; final once the stream is closed.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Hex SHA-256 of everything written, available once the stream is closed.
+     */
+    public String getSha256() {
+        return sha256;
+    }
+
+    /**
+     * Hex CRC32C of each block in order, available once the stream is closed.
+     */
+    public List<String> getBlocks() {
+        return blocks;
+    }
+}
@@ -0,0 +1,75 @@
+package com.maze.DB.Studio.util;
+
+/**
+ * The tab-separated text format shared by PostgreSQL {@code COPY ... FROM STDIN} and MySQL
+ * {@code LOAD DATA}: one row per line, {@code \N} for NULL, and backslash escapes for
+ * backslash, tab, newline and carriage return.
+ */
+public class CopyTextFormat {
+
+    public static final String NULL = "\\N";
+
+    /**
+     * Appends one row, terminated by a newline. Null values are written as {@code \N}.
+     */
+    public static void appendRow(StringBuilder sb, String[] values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) sb.append('\t');
+            appendField(sb, values[i]);
+        }
+        sb.append('\n');
+    }
+
+    public static void appendField(StringBuilder sb, String value) {
+        if (value == null) {
+            sb.append(NULL);
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> sb.append("\\\\");
+                case '\t' -> sb.append("\\t");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                default -> sb.append(c);
+            }
+        }
+    }
+
+    /**
+     * Splits one line (without its newline) into fields, turning {@code \N} into null and
+     * undoing the backslash escapes.
+     */
+    public static String[] parseRow(String line, int columnCount) {
+        String[] raw = line.split("\t", -1); // tabs inside values are escaped
+        if (raw.length != columnCount) {
+            throw new IllegalArgumentException("Expected " + columnCount + " fields but found " + raw.length);
+        }
+        String[] fields = new String[columnCount];
+        for (int f = 0; f < columnCount; f++) {
+            fields[f] = raw[f].equals(NULL) ? null : unescape(raw[f]);
+        }
+        return fields;
+    }
+
+    private static String unescape(String field) {
+        if (field.indexOf('\\') < 0) return field;
+        StringBuilder sb = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c != '\\' || i + 1 == field.length()) {
+                sb.append(c);
+                continue;
+            }
+            char next = field.charAt(++i);
+            switch (next) {
+                case 't' -> sb.append('\t');
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                default -> sb.append(next);
+            }
+        }
+        return sb.toString();
+    }
+}
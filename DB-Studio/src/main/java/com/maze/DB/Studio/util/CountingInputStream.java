@@ -0,0 +1,40 @@
+package com.maze.DB.Studio.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * Reports the number of bytes read to a listener, e.g. for progress and ETA of an import.
+ */
+public class CountingInputStream extends FilterInputStream {
+
+    private final LongConsumer onRead;
+
+    public CountingInputStream(InputStream in, LongConsumer onRead) {
+        super(in);
+        this.onRead = onRead;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) onRead.accept(1);
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) onRead.accept(n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        if (skipped > 0) onRead.accept(skipped);
+        return skipped;
+    }
+}
@@ -0,0 +1,31 @@
+package com.maze.DB.Studio.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * Reports the number of bytes written to a listener, e.g. for progress of an export.
+ */
+public class CountingOutputStream extends FilterOutputStream {
+
+    private final LongConsumer onWrite;
+
+    public CountingOutputStream(OutputStream out, LongConsumer onWrite) {
+        super(out);
+        this.onWrite = onWrite;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        onWrite.accept(1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len); // FilterOutputStream would write byte by byte
+        onWrite.accept(len);
+    }
+}
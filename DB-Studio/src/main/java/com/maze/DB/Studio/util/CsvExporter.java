@@ -5,6 +5,8 @@ import java.io.Writer;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.function.LongConsumer;
 
 
 /**
@@ -19,13 +21,21 @@ public class CsvExporter {
      * The ResultSet is fully consumed; the caller is responsible for closing it.
      */
     public static void writeResultSetToCsv(ResultSet rs, Writer writer) throws SQLException, IOException {
+        writeResultSetToCsv(rs, writer, n -> {
+        });
+    }
+
+    /**
+     * As {@link #writeResultSetToCsv(ResultSet, Writer)}, calling {@code onRows} after every row written.
+     */
+    public static void writeResultSetToCsv(ResultSet rs, Writer writer, LongConsumer onRows) throws SQLException, IOException {
         ResultSetMetaData md = rs.getMetaData();
         int cols = md.getColumnCount();
 
 
 // Write header row
         for (int i = 1; i <= cols; i++) {
-            writer.append(escape(md.getColumnLabel(i)));
+            writeField(writer, md.getColumnLabel(i));
             if (i < cols) writer.append(',');
         }
         writer.append('\n');
@@ -35,10 +45,11 @@ public class CsvExporter {
         while (rs.next()) {
             for (int i = 1; i <= cols; i++) {
                 Object v = rs.getObject(i);
-                writer.append(escape(v == null ? "" : v.toString()));
+                if (v != null) writeField(writer, v.toString());
                 if (i < cols) writer.append(',');
             }
             writer.append('\n');
+            onRows.accept(1);
         }
 
 
@@ -47,14 +58,46 @@ public class CsvExporter {
 
 
     /**
-     * Escapes a field for CSV according to RFC 4180.
+     * Writes one CSV record terminated by a newline; null values are written as empty fields.
+     */
+    public static void writeRecord(Writer writer, List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) writer.append(',');
+            Object v = values.get(i);
+            if (v != null) writeField(writer, v.toString());
+        }
+        writer.append('\n');
+    }
+
+
+    /**
+     * Writes a field escaped for CSV according to RFC 4180. Fields that need no quoting
+     * (the common case) are written as-is without building a new String.
      */
-    private static String escape(String s) {
-        if (s == null) return "";
-        String out = s.replace("\"", "\"\"");
-        if (out.contains(",") || out.contains("\n") || out.contains("\"")) {
-            return "\"" + out + "\"";
+    private static void writeField(Writer writer, String s) throws IOException {
+        if (s == null) return;
+        if (!needsQuoting(s)) {
+            writer.write(s);
+            return;
+        }
+        writer.write('"');
+        int start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) == '"') {
+                writer.write(s, start, i + 1 - start);
+                writer.write('"');
+                start = i + 1;
+            }
+        }
+        writer.write(s, start, s.length() - start);
+        writer.write('"');
+    }
+
+    private static boolean needsQuoting(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
         }
-        return out;
+        return false;
     }
 }
\ No newline at end of file
@@ -0,0 +1,159 @@
+package com.maze.DB.Studio.util;
+
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Converts CSV cells to typed values without relying on exceptions: each column gets a type,
+ * either inferred from a sample of rows or taken from the target column's JDBC type, and cells
+ * are checked with small hand-written scanners before being converted. A cell that does not
+ * match its column's type is kept as a string.
+ */
+public class CsvValueParser {
+
+    public enum ColumnType {INTEGER, DECIMAL, BOOLEAN, STRING}
+
+    private final ColumnType[] types;
+
+    private CsvValueParser(ColumnType[] types) {
+        this.types = types;
+    }
+
+    /**
+     * Picks, per column, the narrowest type that every non-blank sample value matches.
+     */
+    public static CsvValueParser inferFrom(List<String[]> sample, int columnCount) {
+        ColumnType[] types = new ColumnType[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+            boolean integer = true, decimal = true, bool = true, seen = false;
+            for (String[] row : sample) {
+                if (c >= row.length) continue;
+                String s = row[c].trim();
+                if (s.isEmpty()) continue;
+                seen = true;
+                integer &= isInteger(s);
+                decimal &= isDecimal(s);
+                bool &= isBoolean(s);
+            }
+            types[c] = !seen ? ColumnType.STRING
+                    : integer ? ColumnType.INTEGER
+                    : decimal ? ColumnType.DECIMAL
+                    : bool ? ColumnType.BOOLEAN
+                    : ColumnType.STRING;
+        }
+        return new CsvValueParser(types);
+    }
+
+    /**
+     * Uses the target table's column types. Exact decimals, dates and everything else stay
+     * strings so the insert binder can convert them without losing precision.
+     */
+    public static CsvValueParser fromJdbcTypes(int[] jdbcTypes) {
+        ColumnType[] types = new ColumnType[jdbcTypes.length];
+        for (int c = 0; c < jdbcTypes.length; c++) {
+            types[c] = switch (jdbcTypes[c]) {
+                case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT -> ColumnType.INTEGER;
+                case Types.FLOAT, Types.DOUBLE, Types.REAL -> ColumnType.DECIMAL;
+                case Types.BIT, Types.BOOLEAN -> ColumnType.BOOLEAN;
+                default -> ColumnType.STRING;
+            };
+        }
+        return new CsvValueParser(types);
+    }
+
+    public ColumnType typeOf(int column) {
+        return column < types.length ? types[column] : ColumnType.STRING;
+    }
+
+    /**
+     * Converts one cell of the given column; blank cells become null.
+     */
+    public Object parse(int column, String value) {
+        if (value == null) return null;
+        String s = value.trim();
+        if (s.isEmpty()) return null;
+
+        switch (typeOf(column)) {
+            case INTEGER:
+                if (isInteger(s)) {
+                    long n = parseLong(s);
+                    if (n >= Integer.MIN_VALUE && n <= Integer.MAX_VALUE) return (int) n;
+                    return n;
+                }
+                break;
+            case DECIMAL:
+                if (isDecimal(s)) return Double.parseDouble(s); // cannot throw once scanned
+                break;
+            case BOOLEAN:
+                if (isBoolean(s)) return s.length() == 4;
+                break;
+            default:
+                break;
+        }
+        return s;
+    }
+
+    // ---- Scanners ----
+
+    /**
+     * Optional sign followed by 1 to 18 digits, so the value always fits in a long.
+     */
+    static boolean isInteger(String s) {
+        int i = (s.charAt(0) == '-' || s.charAt(0) == '+') ? 1 : 0;
+        int digits = s.length() - i;
+        if (digits < 1 || digits > 18) return false;
+        for (; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+    /**
+     * [sign] digits [. digits] [e|E [sign] digits], with at least one mantissa digit.
+     */
+    static boolean isDecimal(String s) {
+        int i = 0, n = s.length();
+        if (s.charAt(i) == '-' || s.charAt(i) == '+') i++;
+        int mantissaDigits = 0;
+        while (i < n && isDigit(s.charAt(i))) {
+            i++;
+            mantissaDigits++;
+        }
+        if (i < n && s.charAt(i) == '.') {
+            i++;
+            while (i < n && isDigit(s.charAt(i))) {
+                i++;
+                mantissaDigits++;
+            }
+        }
+        if (mantissaDigits == 0) return false;
+        if (i < n && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            if (i < n && (s.charAt(i) == '-' || s.charAt(i) == '+')) i++;
+            int exponentDigits = 0;
+            while (i < n && isDigit(s.charAt(i))) {
+                i++;
+                exponentDigits++;
+            }
+            if (exponentDigits == 0) return false;
+        }
+        return i == n;
+    }
+
+    static boolean isBoolean(String s) {
+        return s.equalsIgnoreCase("true") || s.equalsIgnoreCase("false");
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static long parseLong(String s) {
+        boolean negative = s.charAt(0) == '-';
+        int i = (negative || s.charAt(0) == '+') ? 1 : 0;
+        long n = 0;
+        for (; i < s.length(); i++) n = n * 10 + (s.charAt(i) - '0');
+        return negative ? -n : n;
+    }
+}
@@ -0,0 +1,199 @@
+package com.maze.DB.Studio.util;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Writes rows to an .xlsx file with POI's streaming {@link SXSSFWorkbook}: only a small window
+ * of rows is kept in memory and older rows are flushed to compressed temp files.
+ * Cells keep their numeric, boolean and date types, and column widths are estimated from the
+ * first rows instead of {@code autoSizeColumn}, which would rescan every cell.
+ */
+public class ExcelStreamWriter implements AutoCloseable {
+
+    private static final int MAX_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows();
+    private static final int MAX_COLUMN_WIDTH = 255 * 256;
+    // Excel stores numbers as doubles; longer numbers are written as text to keep every digit
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final long MAX_EXACT_INTEGER = 999_999_999_999_999L;
+    private static final int MAX_CELL_TEXT = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+
+    private final SXSSFWorkbook workbook;
+    private final String sheetName;
+    private final int widthSampleRows;
+    private final CellStyle dateStyle;
+    private final CellStyle dateTimeStyle;
+
+    private SXSSFSheet sheet;
+    private int sheetCount;
+    private int rowIndex;
+    private int sampledRows;
+    private List<?> headers;
+    private int[] maxWidths = new int[0];
+
+    public ExcelStreamWriter(String sheetName, int rowWindow, int widthSampleRows) {
+        this.workbook = new SXSSFWorkbook(null, rowWindow, true);
+        this.sheetName = sheetName;
+        this.widthSampleRows = widthSampleRows;
+        CreationHelper helper = workbook.getCreationHelper();
+        this.dateStyle = workbook.createCellStyle();
+        this.dateStyle.setDataFormat(helper.createDataFormat().getFormat("yyyy-mm-dd"));
+        this.dateTimeStyle = workbook.createCellStyle();
+        this.dateTimeStyle.setDataFormat(helper.createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+        newSheet();
+    }
+
+    public void writeHeader(List<?> headers) {
+        this.headers = headers;
+        writeCells(headers);
+    }
+
+    public void writeRow(List<?> values) {
+        if (rowIndex >= MAX_ROWS_PER_SHEET) {
+            // Sheet is full; continue on the next one, repeating the header
+            applyColumnWidths();
+            newSheet();
+            if (headers != null) writeCells(headers);
+        }
+        writeCells(values);
+    }
+
+    /**
+     * Writes a header row and then every row of the result set. The result set is fully
+     * consumed; the caller is responsible for closing it.
+     */
+    public void writeResultSet(ResultSet rs) throws SQLException {
+        writeResultSet(rs, n -> {
+        });
+    }
+
+    /**
+     * As {@link #writeResultSet(ResultSet)}, calling {@code onRows} after every row written.
+     */
+    public void writeResultSet(ResultSet rs, LongConsumer onRows) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int colCount = meta.getColumnCount();
+        List<Object> header = new ArrayList<>(colCount);
+        for (int i = 1; i <= colCount; i++) header.add(meta.getColumnLabel(i));
+        writeHeader(header);
+
+        Object[] row = new Object[colCount];
+        List<Object> rowView = Arrays.asList(row);
+        while (rs.next()) {
+            for (int i = 1; i <= colCount; i++) row[i - 1] = rs.getObject(i);
+            writeRow(rowView);
+            onRows.accept(1);
+        }
+    }
+
+    /**
+     * Writes the finished workbook to {@code out}. The stream is not closed.
+     */
+    public void finish(OutputStream out) throws IOException {
+        applyColumnWidths();
+        workbook.write(out);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        workbook.dispose(); // delete the temp files backing flushed rows
+        workbook.close();
+    }
+
+    private void newSheet() {
+        sheetCount++;
+        sheet = workbook.createSheet(sheetCount == 1 ? sheetName : sheetName + " (" + sheetCount + ")");
+        rowIndex = 0;
+        sampledRows = 0;
+    }
+
+    private void writeCells(List<?> values) {
+        Row row = sheet.createRow(rowIndex++);
+        boolean sample = sampledRows++ < widthSampleRows;
+        if (sample && maxWidths.length < values.size()) maxWidths = Arrays.copyOf(maxWidths, values.size());
+
+        for (int i = 0; i < values.size(); i++) {
+            Object value = values.get(i);
+            if (value == null) continue;
+            Cell cell = row.createCell(i);
+            int width = setValue(cell, value);
+            if (sample && width > maxWidths[i]) maxWidths[i] = width;
+        }
+    }
+
+    /**
+     * True for decimals and integers (e.g. 19-digit BIGINT ids) that a double cannot hold exactly.
+     */
+    private static boolean hasMoreThanExactDigits(Number number) {
+        if (number instanceof BigDecimal decimal) return decimal.precision() > MAX_EXACT_DIGITS;
+        if (number instanceof BigInteger integer) return integer.abs().compareTo(BigInteger.valueOf(MAX_EXACT_INTEGER)) > 0;
+        if (number instanceof Long n) return n > MAX_EXACT_INTEGER || n < -MAX_EXACT_INTEGER;
+        return false;
+    }
+
+    /**
+     * Sets a typed cell value and returns its approximate display width in characters.
+     */
+    private int setValue(Cell cell, Object value) {
+        if (value instanceof Number number && hasMoreThanExactDigits(number)) {
+            String text = number instanceof BigDecimal decimal ? decimal.toPlainString() : number.toString();
+            cell.setCellValue(text);
+            return text.length();
+        }
+        if (value instanceof Number number) {
+            cell.setCellValue(number.doubleValue());
+            return number.toString().length();
+        }
+        if (value instanceof Boolean bool) {
+            cell.setCellValue(bool);
+            return 5;
+        }
+        if (value instanceof java.sql.Date date) {
+            cell.setCellValue(date.toLocalDate());
+            cell.setCellStyle(dateStyle);
+            return 10;
+        }
+        if (value instanceof java.util.Date date) {
+            cell.setCellValue(date);
+            cell.setCellStyle(dateTimeStyle);
+            return 19;
+        }
+        if (value instanceof LocalDate date) {
+            cell.setCellValue(date);
+            cell.setCellStyle(dateStyle);
+            return 10;
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            cell.setCellValue(dateTime);
+            cell.setCellStyle(dateTimeStyle);
+            return 19;
+        }
+        String text = value instanceof byte[] bytes ? "(" + bytes.length + " bytes)" : value.toString();
+        if (text.length() > MAX_CELL_TEXT) text = text.substring(0, MAX_CELL_TEXT);
+        cell.setCellValue(text);
+        return text.length();
+    }
+
+    private void applyColumnWidths() {
+        for (int i = 0; i < maxWidths.length; i++) {
+            sheet.setColumnWidth(i, Math.min(MAX_COLUMN_WIDTH, (maxWidths[i] + 2) * 256));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.maze.DB.Studio.util;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * One member of a backup archive, gzipped into a temporary file in a single pass. The SHA-256 of
+ * the uncompressed data (for the manifest) and the CRC32 of the compressed bytes (which a stored
+ * zip entry needs up front) are computed while writing, so the file is never read back to
+ * checksum it and is copied into the archive without being compressed again.
+ */
+public class GzipPart implements Closeable {
+
+    private final Path file;
+    private final MessageDigest digest = newDigest();
+    private final CRC32 crc = new CRC32();
+    private final OutputStream out;
+    private String sha256;
+
+    /**
+     * @param onCompressedBytes receives the number of compressed bytes written, e.g. for progress
+     */
+    public GzipPart(Path file, LongConsumer onCompressedBytes) throws IOException {
+        this.file = file;
+        OutputStream fileOut = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024), onCompressedBytes);
+        this.out = new DigestOutputStream(new GZIPOutputStream(new CheckedOutputStream(fileOut, crc), 64 * 1024), digest);
+    }
+
+    /**
+     * The uncompressed side. Closing it (or the part) finishes the gzip stream.
+     */
+    public OutputStream stream() {
+        return out;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (sha256 != null) return;
+        out.close();
+        sha256 = HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Hex SHA-256 of everything written, available once the part is closed.
+     */
+    public String sha256() {
+        return sha256;
+    }
+
+    /**
+     * Copies the compressed file into the archive as a stored entry and deletes it.
+     */
+    public void moveInto(ZipOutputStream zip, String entryName) throws IOException {
+        ZipEntry entry = new ZipEntry(entryName);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(Files.size(file));
+        entry.setCrc(crc.getValue());
+        zip.putNextEntry(entry);
+        Files.copy(file, zip);
+        zip.closeEntry();
+        Files.delete(file);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.maze.DB.Studio.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Helpers for reading large result sets without materializing them in the driver.
+ * Each driver needs a different incantation to actually stream rows from the server.
+ */
+public class JdbcStreaming {
+
+    /**
+     * Creates a forward-only, read-only statement whose result sets are fetched from the
+     * server in chunks of {@code fetchSize} rows.
+     * <ul>
+     *   <li>MySQL Connector/J only streams with a fetch size of {@code Integer.MIN_VALUE}.</li>
+     *   <li>PostgreSQL only uses a server cursor outside autocommit mode.</li>
+     *   <li>Other drivers honour a positive fetch size directly.</li>
+     * </ul>
+     * The connection may be left with autocommit disabled; pooled connections are reset on return.
+     */
+    public static Statement createStreamingStatement(Connection conn, int fetchSize) throws SQLException {
+        String dbProduct = conn.getMetaData().getDatabaseProductName().toLowerCase();
+        if (dbProduct.contains("postgresql")) {
+            conn.setAutoCommit(false);
+        }
+        Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        stmt.setFetchSize(isMySqlDriver(conn) ? Integer.MIN_VALUE : fetchSize);
+        return stmt;
+    }
+
+    /**
+     * Like {@link #createStreamingStatement}, for a query with parameters.
+     */
+    public static PreparedStatement prepareStreamingStatement(Connection conn, String sql, int fetchSize) throws SQLException {
+        String dbProduct = conn.getMetaData().getDatabaseProductName().toLowerCase();
+        if (dbProduct.contains("postgresql")) {
+            conn.setAutoCommit(false);
+        }
+        PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        stmt.setFetchSize(isMySqlDriver(conn) ? Integer.MIN_VALUE : fetchSize);
+        return stmt;
+    }
+
+    /**
+     * True when the connection comes from MySQL Connector/J, whose streaming result sets
+     * drain every remaining row on close unless the connection is aborted.
+     */
+    public static boolean isMySqlDriver(Connection conn) throws SQLException {
+        String url = conn.getMetaData().getURL();
+        return url != null && url.startsWith("jdbc:mysql:");
+    }
+
+    /**
+     * Gives up on a streaming result that will not be read to the end, e.g. because the client
+     * went away. MySQL connections are aborted so closing the result does not read the rest of
+     * the rows first; other drivers stop on close and are left alone.
+     */
+    public static void abandon(Connection conn) {
+        try {
+            if (isMySqlDriver(conn)) conn.abort(Runnable::run);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
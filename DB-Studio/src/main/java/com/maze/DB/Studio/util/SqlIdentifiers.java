@@ -0,0 +1,18 @@
+package com.maze.DB.Studio.util;
+
+/**
+ * Quotes table and column names exactly as the database reported them, so mixed-case and
+ * reserved names survive. {@code dbProduct} is the lower-cased database product name.
+ */
+public class SqlIdentifiers {
+
+    public static String quote(String name, String dbProduct) {
+        if (dbProduct.contains("sql server")) return "[" + name.replace("]", "]]") + "]";
+        if (dbProduct.contains("mysql") || dbProduct.contains("mariadb")) return "`" + name.replace("`", "``") + "`";
+        return "\"" + name.replace("\"", "\"\"") + "\"";
+    }
+
+    public static String qualified(String schema, String name, String dbProduct) {
+        return schema == null ? quote(name, dbProduct) : quote(schema, dbProduct) + "." + quote(name, dbProduct);
+    }
+}
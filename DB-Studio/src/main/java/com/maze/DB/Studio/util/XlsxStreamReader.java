@@ -0,0 +1,183 @@
+package com.maze.DB.Studio.util;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.File;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reads the first sheet of an .xlsx file with POI's event (SAX) model and hands every row to a
+ * {@link RowHandler} as soon as it is parsed, so memory use does not depend on the sheet size.
+ * Cell values are typed like the DOM reader's: strings, doubles, booleans and timestamps for
+ * date-formatted numbers. Formula cells yield their cached result.
+ */
+public class XlsxStreamReader {
+
+    @FunctionalInterface
+    public interface RowHandler {
+        /**
+         * @param rowNumber 1-based row number in the sheet
+         * @param values    cell values indexed by column, with null for empty cells
+         */
+        void row(int rowNumber, List<Object> values) throws Exception;
+    }
+
+    public static void read(File file, RowHandler handler) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            boolean date1904 = usesDate1904(reader);
+
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) throw new IllegalArgumentException("Excel workbook has no sheets");
+
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new SheetHandler(strings, styles, date1904, handler));
+                parser.parse(new InputSource(sheet));
+            } catch (SAXException e) {
+                // Unwrap errors thrown by the row handler (e.g. a failed batch insert)
+                if (e.getException() != null) throw e.getException();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Whether the workbook counts dates from 1904 (the old Mac Excel default) instead of 1900.
+     */
+    private static boolean usesDate1904(XSSFReader reader) throws Exception {
+        boolean[] date1904 = {false};
+        try (InputStream workbook = reader.getWorkbookData()) {
+            XMLReader parser = XMLHelper.newXMLReader();
+            parser.setContentHandler(new DefaultHandler() {
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes attrs) {
+                    if (localName.equals("workbookPr")) {
+                        String value = attrs.getValue("date1904");
+                        date1904[0] = "1".equals(value) || "true".equalsIgnoreCase(value);
+                    }
+                }
+            });
+            parser.parse(new InputSource(workbook));
+        }
+        return date1904[0];
+    }
+
+    private static class SheetHandler extends DefaultHandler {
+        private final ReadOnlySharedStringsTable strings;
+        private final StylesTable styles;
+        private final boolean date1904;
+        private final RowHandler handler;
+
+        private final StringBuilder text = new StringBuilder();
+        private List<Object> row;
+        private int rowNumber;
+        private int nextColumn;
+
+        // state of the cell being parsed
+        private int column;
+        private String type;
+        private int styleIndex;
+        private boolean inValue;
+
+        SheetHandler(ReadOnlySharedStringsTable strings, StylesTable styles, boolean date1904, RowHandler handler) {
+            this.strings = strings;
+            this.styles = styles;
+            this.date1904 = date1904;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attrs) {
+            switch (localName) {
+                case "row" -> {
+                    String r = attrs.getValue("r");
+                    rowNumber = r != null ? Integer.parseInt(r) : rowNumber + 1;
+                    row = new ArrayList<>();
+                    nextColumn = 0;
+                }
+                case "c" -> {
+                    String ref = attrs.getValue("r");
+                    column = ref != null ? new CellReference(ref).getCol() : nextColumn;
+                    nextColumn = column + 1;
+                    type = attrs.getValue("t");
+                    String s = attrs.getValue("s");
+                    styleIndex = s != null ? Integer.parseInt(s) : -1;
+                    text.setLength(0);
+                }
+                // <v> holds the value (or cached formula result); <t> holds inline string text
+                case "v", "t" -> inValue = true;
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue) text.append(ch, start, length);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "v", "t" -> inValue = false;
+                case "c" -> {
+                    while (row.size() <= column) row.add(null);
+                    row.set(column, cellValue());
+                }
+                case "row" -> {
+                    try {
+                        handler.row(rowNumber, row);
+                    } catch (Exception e) {
+                        throw new SAXException(e);
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        private Object cellValue() {
+            String raw = text.toString();
+            if (type == null || type.equals("n")) {
+                if (raw.isEmpty()) return null;
+                double number = Double.parseDouble(raw);
+                if (isDateStyle() && DateUtil.isValidExcelDate(number)) {
+                    return new Timestamp(DateUtil.getJavaDate(number, date1904).getTime());
+                }
+                return number;
+            }
+            return switch (type) {
+                case "s" -> raw.isEmpty() ? null : strings.getItemAt(Integer.parseInt(raw)).getString().trim();
+                case "inlineStr", "str" -> raw.trim();
+                case "b" -> raw.equals("1");
+                default -> null; // "e" (error) cells
+            };
+        }
+
+        private boolean isDateStyle() {
+            if (styleIndex < 0 || styles == null) return false;
+            XSSFCellStyle style = styles.getStyleAt(styleIndex);
+            return style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.maze.DB.Studio.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InsertPlanTests {
+
+	@Test
+	void rejectsIntegersOutsideColumnRange() throws Exception {
+		try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:insert_plan")) {
+			try (Statement stmt = conn.createStatement()) {
+				stmt.execute("CREATE TABLE T (N INT)");
+			}
+			InsertPlan plan = InsertPlan.resolve(conn, "T", List.of("N"));
+
+			assertEquals(42, plan.convert(0, 42L));
+			assertEquals(7, plan.convert(0, 7.0));
+			// CSV values past int range arrive as Long, Excel cells as Double
+			assertThrows(ArithmeticException.class, () -> plan.convert(0, 3000000000L));
+			assertThrows(ArithmeticException.class, () -> plan.convert(0, 3.0e9));
+			assertThrows(ArithmeticException.class, () -> plan.convertToText(0, -3000000000L));
+
+			try (PreparedStatement ps = conn.prepareStatement(plan.getInsertSql())) {
+				assertThrows(SQLException.class, () -> plan.bindRow(ps, List.of(3000000000L), 1));
+				assertThrows(SQLException.class, () -> plan.bindRow(ps, List.of(3.0e9), 1));
+			}
+		}
+	}
+
+	@Test
+	void readsColumnTypesFromTheCurrentSchemaOnly() throws Exception {
+		try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:insert_plan_schemas")) {
+			try (Statement stmt = conn.createStatement()) {
+				stmt.execute("CREATE TABLE T (N INT)");
+				stmt.execute("CREATE SCHEMA OTHER");
+				stmt.execute("CREATE TABLE OTHER.T (N VARCHAR(10))");
+			}
+
+			assertEquals(42, InsertPlan.resolve(conn, "T", List.of("N")).convert(0, "42"));
+			assertEquals("42", InsertPlan.resolve(conn, "OTHER.T", List.of("N")).convert(0, "42"));
+		}
+	}
+
+}
@@ -0,0 +1,41 @@
+package com.maze.DB.Studio.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Types;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvValueParserTests {
+
+	@Test
+	void infersNarrowestTypePerColumn() {
+		List<String[]> sample = List.of(
+				new String[]{"1", "1.5", "true", "abc", ""},
+				new String[]{"-20", "2", "FALSE", "12", ""});
+		CsvValueParser parser = CsvValueParser.inferFrom(sample, 5);
+
+		assertEquals(CsvValueParser.ColumnType.INTEGER, parser.typeOf(0));
+		assertEquals(CsvValueParser.ColumnType.DECIMAL, parser.typeOf(1));
+		assertEquals(CsvValueParser.ColumnType.BOOLEAN, parser.typeOf(2));
+		assertEquals(CsvValueParser.ColumnType.STRING, parser.typeOf(3));
+		assertEquals(CsvValueParser.ColumnType.STRING, parser.typeOf(4));
+	}
+
+	@Test
+	void parsesTypedValuesAndFallsBackToText() {
+		CsvValueParser parser = CsvValueParser.fromJdbcTypes(new int[]{Types.INTEGER, Types.DOUBLE, Types.BOOLEAN, Types.DECIMAL});
+
+		assertEquals(42, parser.parse(0, " 42 "));
+		assertEquals(12345678901L, parser.parse(0, "12345678901"));
+		assertEquals("4x", parser.parse(0, "4x"));
+		assertEquals(-1.5e3, parser.parse(1, "-1.5e3"));
+		assertEquals("1e", parser.parse(1, "1e"));
+		assertEquals(".", parser.parse(1, "."));
+		assertEquals(Boolean.TRUE, parser.parse(2, "True"));
+		assertEquals("19.99", parser.parse(3, "19.99"));
+		assertNull(parser.parse(0, "  "));
+	}
+
+}
@@ -0,0 +1,39 @@
+package com.maze.DB.Studio.util;
+
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExcelStreamWriterTests {
+
+	@Test
+	void keepsEveryDigitOfLongNumbers() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ExcelStreamWriter excel = new ExcelStreamWriter("Test", 10, 10)) {
+			excel.writeHeader(List.of("long", "bigint", "decimal", "small"));
+			excel.writeRow(List.of(1234567890123456789L, new BigInteger("-98765432109876543210"),
+					new BigDecimal("12345678901234567.89"), 999_999_999_999_999L));
+			excel.finish(out);
+		}
+
+		try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+			Row row = workbook.getSheetAt(0).getRow(1);
+			assertEquals("1234567890123456789", row.getCell(0).getStringCellValue());
+			assertEquals("-98765432109876543210", row.getCell(1).getStringCellValue());
+			assertEquals("12345678901234567.89", row.getCell(2).getStringCellValue());
+			// Fifteen digits still fit in a double and stay numeric
+			assertEquals(CellType.NUMERIC, row.getCell(3).getCellType());
+			assertEquals(999_999_999_999_999d, row.getCell(3).getNumericCellValue());
+		}
+	}
+
+}
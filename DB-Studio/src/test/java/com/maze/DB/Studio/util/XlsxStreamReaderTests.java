@@ -0,0 +1,45 @@
+package com.maze.DB.Studio.util;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XlsxStreamReaderTests {
+
+	@TempDir
+	File dir;
+
+	@Test
+	void readsDatesOfWorkbooksCountingFrom1904() throws Exception {
+		LocalDateTime date = LocalDateTime.of(2024, 3, 15, 10, 30);
+		File file = new File(dir, "dates.xlsx");
+		try (XSSFWorkbook workbook = new XSSFWorkbook(); FileOutputStream out = new FileOutputStream(file)) {
+			var properties = workbook.getCTWorkbook().isSetWorkbookPr()
+					? workbook.getCTWorkbook().getWorkbookPr() : workbook.getCTWorkbook().addNewWorkbookPr();
+			properties.setDate1904(true);
+			assertTrue(workbook.isDate1904());
+			CellStyle style = workbook.createCellStyle();
+			style.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm"));
+			Row row = workbook.createSheet().createRow(0);
+			row.createCell(0).setCellValue(date);
+			row.getCell(0).setCellStyle(style);
+			workbook.write(out);
+		}
+
+		List<Object> values = new ArrayList<>();
+		XlsxStreamReader.read(file, (rowNumber, row) -> values.addAll(row));
+		assertEquals(List.of(Timestamp.valueOf(date)), values);
+	}
+
+}